@@ -26,15 +26,22 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
 
 import soot.Scene;
 import soot.SootMethod;
@@ -43,27 +50,27 @@ import soot.jimple.toolkits.ide.JimpleIFDSSolver;
 import tailor.extension.ExtensionFinder;
 import tailor.extension.IFDSExtensionBottomUpTailor;
 import tailor.extension.IFDSExtensionTopDownTailor;
-import tailor.extension.tagger.BranchTagger;
-import tailor.extension.tagger.ConstructorCallTagger;
 import tailor.extension.tagger.CycleTagger;
-import tailor.extension.tagger.ICFGTagger;
-import tailor.extension.tagger.MethodTagger;
+import tailor.extension.tagger.CycleTagger.CycleMarks;
 import tailor.icfg.BackwardsICFG;
 import tailor.icfg.BiDiICFG;
+import tailor.icfg.BlockICFG;
 import tailor.icfg.BlockedJimpleBasedICFG;
 import tailor.icfg.BottomUpBlockedJimpleICFG;
+import tailor.icfg.CompactICFG;
 import tailor.icfg.ICFG;
 import tailor.icfg.JimpleBasedICFG;
 import tailor.icfg.TopDownBlockedJimpleICFG;
+import tailor.icfg.UnitNumbering;
+import tailor.icfg.util.ConcurrentBitSet;
+import tailor.icfg.util.ICFGPruner;
 import tailor.icfg.util.InterCycleFinder;
-import tailor.icfg.util.IntraCycleFinder;
-import tailor.icfg.util.NoExceptionGraph;
 import tailor.ifds.IFDSBottomUpTailor;
 import tailor.ifds.IFDSResultMap;
 import tailor.ifds.IFDSTopDownTailor;
+import tailor.ifds.SCAutomaton;
 import tailor.ifds.StatementSequence;
 import tailor.ifds.StatementSequenceUtil;
-import tailor.tag.BottomUpReachableTag;
 
 public class Analysis {
 	
@@ -74,100 +81,116 @@ public class Analysis {
 	private StatementSequenceUtil util;
 	
 	private BackwardsICFG bwICFG; 
-	private BlockedJimpleBasedICFG fwICFG;
+	private BlockedJimpleBasedICFG buBlockedICFG;
+	private TopDownBlockedJimpleICFG fwICFG;
 	private IFDSResultMap buResults;
 	private JimpleIFDSSolver<StatementSequence,ICFG<Unit,SootMethod>> buSolver, tdSolver;
 	private IFDSBottomUpTailor buTailor;
 	private IFDSTopDownTailor tdTailor;
+	// IDs of the units holding bottom-up facts, owned by this analysis
+	// so that analyses of different SCs never observe each other
+	private final ConcurrentBitSet bottomUpReachable = new ConcurrentBitSet();
 	
 	private boolean extendSC;
+	private int numThreads;
+	// release the bottom-up solver once its results are snapshot
+	private boolean memoryLean = false;
+	// solve on CompactICFG snapshots of the blocked ICFGs
+	private boolean compactICFG = false;
+	// pass over the calls which cannot reach `targetUnits`
+	private boolean pruneICFG = false;
+	// the units of SC and of its extension
+	private Set<Unit> targetUnits;
+	// solve on BlockICFG views of the blocked ICFGs
+	private boolean blockICFG = false;
+	private BlockICFG tdBlocks;
 	
 	public Analysis(Set<StatementSequence> sc,
 			boolean retainCycle,
 			boolean extendSC) {
+		this(sc, retainCycle, extendSC, Runtime.getRuntime().availableProcessors());
+	}
+	
+	public Analysis(Set<StatementSequence> sc,
+			boolean retainCycle,
+			boolean extendSC,
+			int numThreads) {
+		this(new AnalysisContext(), sc, retainCycle, extendSC, numThreads);
+	}
+	
+	public Analysis(AnalysisContext context,
+			Set<StatementSequence> sc,
+			boolean retainCycle,
+			boolean extendSC,
+			int numThreads) {
 		this.sc = sc;
+		this.numThreads = numThreads;
 		Set<Unit> apiCallSet = computeApiCallSet();
-		Set<Unit> headSet = computeHeadSet();
 		Set<Unit> tailSet = computeTailSet();
-		Map<Unit, Set<LinkedList<Unit>>> followSet = computeFollowSet();
-		util = new StatementSequenceUtil(apiCallSet, headSet, tailSet, followSet);
+		util = new StatementSequenceUtil(SCAutomaton.compile(sc));
 		
 		specUnits = new HashSet<>(apiCallSet);
 		specUnits.removeAll(tailSet);
 		
 		// construct ICFG
-		fwICFG = new TopDownBlockedJimpleICFG(specUnits);
+		JimpleBasedICFG baseICFG = context.getICFG();
+		fwICFG = newTopDownICFG(baseICFG, specUnits,
+				Collections.emptyMap(), Collections.emptyMap());
 		if (!retainCycle) {
-			IntraCycleFinder intraFinder = new IntraCycleFinder();
-			Map<Pair<Unit, Unit>, Set<Unit>> intraCycles = new HashMap<>();
-			fwICFG.allMethods()
-				.stream()
-				//.filter(m -> m.getDeclaringClass().isApplicationClass())
-				.forEach(m -> {
-					if (m.hasActiveBody()) {
-						Map<Pair<Unit, Unit>, Set<Unit>> cycles =
-								intraFinder.find(
-										new NoExceptionGraph<>(fwICFG.getOrCreateUnitGraph(m)),
-										m);
-						// examine intra-procedural cycles
-						if (!cycles.isEmpty()) {
-							System.out.println("Found back edges in " + m + " :");
-							cycles.keySet().forEach(p -> {
-								System.out.println("> " + p.getO1() + " -> " + p.getO2());
-							});
-							System.out.println();
-							System.out.println("Redirections:");
-							InterCycleFinder.printMap(cycles);
-							System.out.println();
-						}
-						intraCycles.putAll(cycles);
-					}
-				});
+			Map<Pair<Unit, Unit>, Set<Unit>> intraCycles = context.getIntraCycles();
 			
 			InterCycleFinder interFinder = new InterCycleFinder();
 			Map<Unit, Set<SootMethod>> interCycles =
 					interFinder.find(fwICFG, Scene.v().getMainMethod());
 			InterCycleFinder.printMap(interCycles);
 			
-			fwICFG = new TopDownBlockedJimpleICFG(specUnits, intraCycles, interCycles);
-			bwICFG = new BackwardsICFG(
-						new BottomUpBlockedJimpleICFG(specUnits, intraCycles, interCycles));
+			fwICFG = newTopDownICFG(baseICFG, specUnits, intraCycles, interCycles);
+			buBlockedICFG = new BottomUpBlockedJimpleICFG(baseICFG, specUnits, intraCycles, interCycles);
 			
 		} else {
-			bwICFG = new BackwardsICFG(
-						new BottomUpBlockedJimpleICFG(specUnits));
+			buBlockedICFG = new BottomUpBlockedJimpleICFG(baseICFG, specUnits);
 		}
+		targetUnits = new HashSet<>(apiCallSet);
 		this.extendSC = extendSC;
 		if (extendSC) { // pre-analysis for selecting extension points.
 			long beginTime, endTime;
 			System.out.print("  Finding SC Extension (SCEXT) ... ");
 			beginTime = System.currentTimeMillis();
 			
-			MethodTagger[] methodTaggers = {
-				BranchTagger.INSTANCE,
-				ConstructorCallTagger.INSTANCE,
-			};
-			bwICFG.allMethods().forEach(m -> {
-				for (MethodTagger tagger : methodTaggers) {
-					tagger.tag(m);
-				}
-			});
-			
-			ICFGTagger[] sccTaggers = { CycleTagger.INSTANCE, };
-			for (ICFGTagger tagger : sccTaggers) {
-				tagger.tag(fwICFG);
+			// The cycles depend on the SC, so they are marked per
+			// analysis; the method tags do not, and are added once.
+			// Soot tags are shared by the analyses of all SCs, but are
+			// not safe for concurrent access.
+			CycleMarks cycles = CycleTagger.INSTANCE.mark(fwICFG);
+			synchronized (context) {
+				context.tagMethods();
+				
+				ExtensionFinder extFinder = new ExtensionFinder(fwICFG, util,
+						cycles, context.getAllocationSites());
+				Map<Unit, Set<Unit>> extension = extFinder.find(sc);
+				extension.values().forEach(targetUnits::addAll);
+				util.setExtension(extension);
 			}
-			
-			ExtensionFinder extFinder = new ExtensionFinder(fwICFG, util);
-			util.setExtension(extFinder.find(sc));
 			endTime = System.currentTimeMillis();
 			System.out.println("elapsed time: "
 					+ Driver.costTimeToString(beginTime, endTime));
 		}
 	}
 
+	private TopDownBlockedJimpleICFG newTopDownICFG(JimpleBasedICFG baseICFG,
+			Set<Unit> specUnits,
+			Map<Pair<Unit, Unit>, Set<Unit>> intraCycles,
+			Map<Unit, Set<SootMethod>> interCycles) {
+		return new TopDownBlockedJimpleICFG(baseICFG, specUnits,
+				intraCycles, interCycles, bottomUpReachable);
+	}
+
 	public static Set<StatementSequence> readSC(File scFile) {
-		ICFG<Unit, SootMethod> icfg = new JimpleBasedICFG();
+		return readSC(scFile, new JimpleBasedICFG());
+	}
+	
+	public static Set<StatementSequence> readSC(File scFile,
+			ICFG<Unit, SootMethod> icfg) {
 		UnitFinder unitFinder = new UnitFinder(icfg);
 		Set<StatementSequence> facts = new LinkedHashSet<>();
 		try {
@@ -192,7 +215,7 @@ public class Analysis {
 							apiCallSeq.addLast(call);
 						}
 					}
-					facts.add(new StatementSequence(apiCallSeq));
+					facts.add(StatementSequence.valueOf(apiCallSeq));
 				} catch (RuntimeException e) {
 					Debug.println("Read statement sequence [" + line + "] fails.");
 				}
@@ -209,17 +232,10 @@ public class Analysis {
 	public Set<Unit> computeApiCallSet() {
 		Set<Unit> apiCallSet = new HashSet<>();
 		sc.forEach(seq ->
-			seq.getStmtSeq().forEach(apiCall -> apiCallSet.add(apiCall)));
+			seq.forEach(apiCall -> apiCallSet.add(apiCall)));
 		return apiCallSet;
 	}
 	
-	public Set<Unit> computeHeadSet() {
-		Set<Unit> headSet = new HashSet<>();
-		sc.forEach(seq ->
-			headSet.add(seq.getHead()));
-		return headSet;
-	}
-	
 	public Set<Unit> computeTailSet() {
 		Set<Unit> tailSet = new HashSet<>();
 		sc.forEach(seq ->
@@ -227,57 +243,56 @@ public class Analysis {
 		return tailSet;
 	} 
 	
-	public Map<Unit, Set<LinkedList<Unit>>> computeFollowSet() {
-		Map<Unit, Set<LinkedList<Unit>>> followSet = new HashMap<>();
-		sc.forEach(seq ->
-			addApiCallSeqToFollowSet(followSet, seq.getStmtSeq()));
-		return followSet;
-	}
+	public boolean isMemoryLean() { return memoryLean; }
 	
-	public void addApiCallSeqToFollowSet(Map<Unit, Set<LinkedList<Unit>>> followSet,
-			LinkedList<Unit> apiCallSeq) {
-		if (apiCallSeq.size() < 2) {
-			return;
-		}
-		Unit first = apiCallSeq.getFirst();
-		LinkedList<Unit> follow = new LinkedList<>(apiCallSeq);
-		follow.removeFirst();
-		if (!followSet.containsKey(first)) {
-			followSet.put(first, new HashSet<>());
-		}
-		followSet.get(first).add(follow);
-		addApiCallSeqToFollowSet(followSet, follow);
-	}
+	public void setMemoryLean(boolean memoryLean) { this.memoryLean = memoryLean; }
 	
-	public void addExtensionFollowSet(Map<Unit, Set<LinkedList<Unit>>> followSet,
-			LinkedList<Unit> apiCallSeq) {
-		if (util.isSCHead(apiCallSeq.getFirst())) {
-			return;
-		}
-		Unit first = apiCallSeq.getFirst();
-		LinkedList<Unit> follow = new LinkedList<>(apiCallSeq);
-		follow.removeFirst();
-		if (!followSet.containsKey(first)) {
-			followSet.put(first, new HashSet<>());
-		}
-		followSet.get(first).add(follow);
-		addExtensionFollowSet(followSet, follow);
-	}
+	public boolean isCompactICFG() { return compactICFG; }
+	
+	public void setCompactICFG(boolean compactICFG) { this.compactICFG = compactICFG; }
 	
+	public boolean isPruneICFG() { return pruneICFG; }
+	
+	public void setPruneICFG(boolean pruneICFG) { this.pruneICFG = pruneICFG; }
+	
+	public boolean isBlockICFG() { return blockICFG; }
+	
+	public void setBlockICFG(boolean blockICFG) { this.blockICFG = blockICFG; }
+	
+	/** Return the backward ICFG, which is built by analyse(). */
 	public BackwardsICFG getBackwardICFG() { return bwICFG; }
 	
 	public BlockedJimpleBasedICFG getForwardICFG() { return fwICFG; }
 	
 	public void analyse() {	
 		SootMethod mainMethod = Scene.v().getMainMethod();
+		if (pruneICFG) {
+			pruneICFGs(mainMethod);
+		}
+		// built once `buBlockedICFG` is final, as BackwardsICFG caches
+		// the edges of its delegate
+		bwICFG = new BackwardsICFG(buBlockedICFG);
 		Set<Unit> bwInitialUnits = new HashSet<>(bwICFG.getStartPointsOf(mainMethod));
 		
 		// initial and solve bottom-up problem
+		BiDiICFG<Unit, SootMethod> buForwardICFG = bwICFG.getForwardInterproceduralCFG();
+		BlockICFG buBlocks = null;
+		if (blockICFG) {
+			buBlocks = new BlockICFG(buForwardICFG, targetUnits::contains);
+			buForwardICFG = buBlocks;
+		}
+		if (compactICFG) {
+			buForwardICFG = new CompactICFG(buForwardICFG);
+		}
+		BackwardsICFG buICFG = buForwardICFG == bwICFG.getForwardInterproceduralCFG()
+				? bwICFG
+				: new BackwardsICFG(buForwardICFG);
 		if (extendSC) {
-			buTailor = new IFDSExtensionBottomUpTailor(bwICFG, util, bwInitialUnits);
+			buTailor = new IFDSExtensionBottomUpTailor(buICFG, util, bwInitialUnits);
 		} else {
-			buTailor = new IFDSBottomUpTailor(bwICFG, util, bwInitialUnits);
+			buTailor = new IFDSBottomUpTailor(buICFG, util, bwInitialUnits);
 		}
+		buTailor.setNumThreads(numThreads);
 		
 		System.out.println("  SC-Based Data-Flow Analysis (SCDFA) starts ...");
 		long beginTime = System.currentTimeMillis();
@@ -286,27 +301,49 @@ public class Analysis {
 		{
 			buSolver = new JimpleIFDSSolver<StatementSequence,ICFG<Unit,SootMethod>>(buTailor);
 			buSolver.solve();
-			buResults = new IFDSResultMap(buSolver, bwICFG);
+			if (buBlocks != null) {
+				buResults = new IFDSResultMap(buSolver, bwICFG,
+						buBlocks::getRepresentative, numThreads);
+			} else {
+				buResults = new IFDSResultMap(buSolver, bwICFG, numThreads);
+			}
+			if (memoryLean) {
+				// the jump functions, summaries and path edges are not
+				// needed by the top-down pass and result matching
+				buSolver = null;
+				buTailor = null;
+			}
 		}
-		// add reachable tags
-		addBottomUpReachableTag(bwICFG, buResults);
+		// mark bottom-up reachable units, and fix the subgraph of
+		// fwICFG traversed by the top-down pass
+		markBottomUpReachable(bwICFG, buResults);
+		fwICFG.materializeBottomUpReachable();
 		
 		Set<StatementSequence> tdInitialFacts = new HashSet<>();
 		bwICFG.getEndPointsOf(mainMethod)
 			.forEach(u -> tdInitialFacts.addAll(buResults.ifdsResultsAt(u)));
 		if (extendSC) {
-			removeUselessBottomUpFacts(tdInitialFacts);
+			removeUselessBottomUpFacts(tdInitialFacts, sc);
 		} else {
 			tdInitialFacts.retainAll(sc);
 		}
 		
 		System.out.println("    Running Top-Down pass ...");
 		// initial and solve top-down problem
+		BiDiICFG<Unit, SootMethod> tdICFG = fwICFG;
+		if (blockICFG) {
+			tdBlocks = new BlockICFG(fwICFG, targetUnits::contains);
+			tdICFG = tdBlocks;
+		}
+		if (compactICFG) {
+			tdICFG = new CompactICFG(tdICFG);
+		}
 		if (extendSC) {
-			tdTailor =  new IFDSExtensionTopDownTailor(fwICFG, util, tdInitialFacts);
+			tdTailor =  new IFDSExtensionTopDownTailor(tdICFG, util, tdInitialFacts);
 		} else {
-			tdTailor =  new IFDSTopDownTailor(fwICFG, util, tdInitialFacts);
+			tdTailor =  new IFDSTopDownTailor(tdICFG, util, tdInitialFacts);
 		}
+		tdTailor.setNumThreads(numThreads);
 		
 		tdSolver = new JimpleIFDSSolver<>(tdTailor);
 		tdSolver.solve();
@@ -317,79 +354,116 @@ public class Analysis {
 //		dumpResult();
 	}
 	
-	private void removeUselessBottomUpFacts(Set<StatementSequence> facts) {
-		Set<StatementSequence> tempFacts = new HashSet<>(facts);
-		// remove subsequence fact
-		tempFacts.forEach(tempFact -> {
-			for (StatementSequence fact : facts) {
-				if (isSubFact(tempFact, fact)) {
-					facts.remove(tempFact);
-					break;
-				}
-			}
-		});
-		// remove facts which does not fulfill given relations
-		tempFacts.forEach(tempFact -> {
-			boolean shouldRemove = true;
-			for (StatementSequence seq : sc) {
-				if (isSubFact(seq, tempFact) || seq.equals(tempFact)) {
-					shouldRemove = false;
+	/**
+	 * Restrict both blocked ICFGs to the methods between `mainMethod`
+	 * and the methods of `targetUnits`, see ICFGPruner. The calls to
+	 * the other methods are passed over, and the units of those methods
+	 * are added to the results under the calls in the results, see
+	 * addPrunedCallees().
+	 */
+	private void pruneICFGs(SootMethod mainMethod) {
+		Set<SootMethod> relevant = ICFGPruner.findRelevantMethods(
+				fwICFG, mainMethod, targetUnits);
+		System.out.println("  Pruned ICFG to " + relevant.size()
+				+ " of " + fwICFG.allMethods().size() + " methods");
+		fwICFG.retainMethods(relevant);
+		buBlockedICFG.retainMethods(relevant);
+	}
+	
+	/**
+	 * Remove the facts that are proper suffixes of other facts,
+	 * and the facts that do not end with any sequence of `sc`.
+	 *
+	 * The suffixes of a fact are the chain of its removeHead()s, and
+	 * the facts share their suffixes, so each distinct suffix is
+	 * visited once for both conditions.
+	 */
+	public static void removeUselessBottomUpFacts(Set<StatementSequence> facts,
+			Set<StatementSequence> sc) {
+		// proper suffixes of the facts
+		Set<StatementSequence> subFacts = new HashSet<>();
+		// whether a sequence ends with (or is) a sequence of `sc`
+		Map<StatementSequence, Boolean> endsWithSC = new HashMap<>();
+		for (StatementSequence fact : facts) {
+			for (StatementSequence suffix = fact; suffix.length() > 0; ) {
+				suffix = suffix.removeHead();
+				if (!subFacts.add(suffix)) {
+					// the shorter suffixes have been added
 					break;
 				}
 			}
-			if (shouldRemove) {
-				facts.remove(tempFact);
-			}
-		});
+			endsWithSC(fact, sc, endsWithSC);
+		}
+		facts.removeIf(fact -> subFacts.contains(fact) || !endsWithSC.get(fact));
 	}
 	
-	private boolean isSubFact(StatementSequence subFact, StatementSequence fact) {
-		LinkedList<Unit> subSeq = subFact.getStmtSeq();
-		LinkedList<Unit> seq = fact.getStmtSeq();
-		if (seq.size() > subSeq.size()) {
-			for (int i = 1; i <= subSeq.size(); ++i) {
-				if (!subSeq.get(subSeq.size() - i).equals(seq.get(seq.size() - i))) {
-					return false;
-				}
+	private static boolean endsWithSC(StatementSequence fact,
+			Set<StatementSequence> sc,
+			Map<StatementSequence, Boolean> memo) {
+		List<StatementSequence> visited = new ArrayList<>();
+		boolean res = false;
+		for (StatementSequence suffix = fact; ; suffix = suffix.removeHead()) {
+			Boolean known = memo.get(suffix);
+			if (known != null) {
+				res = known;
+				break;
+			}
+			visited.add(suffix);
+			if (sc.contains(suffix)) {
+				res = true;
+				break;
 			}
-			return true;
+			if (suffix.length() == 0) {
+				break;
+			}
+		}
+		for (StatementSequence suffix : visited) {
+			memo.put(suffix, res);
 		}
-		return false;
+		return res;
 	}
 	
-	public void addBottomUpReachableTag(
+	public void markBottomUpReachable(
 			BiDiICFG<Unit,SootMethod> bwICFG,
 			IFDSResultMap buResults) {
+		UnitNumbering numbering = UnitNumbering.INSTANCE;
 		bwICFG.allNodes()
 			.forEach(u -> {
-				if (!buResults.ifdsResultsAt(u).isEmpty()) {
-					if (!u.hasTag(BottomUpReachableTag.NAME)) {
-						u.addTag(BottomUpReachableTag.INSTANCE);
-					}
+				int id = numbering.getId(u);
+				if (buResults.hasResultsAt(id)) {
+					bottomUpReachable.set(id);
 				}
 			});
 	}
 	
+	/**
+	 * Return the top-down results of `u`, which are held by its run
+	 * if the pass was solved on BlockICFG.
+	 */
+	private Set<StatementSequence> topDownResultsAt(Unit u) {
+		return tdSolver.ifdsResultsAt(tdBlocks != null ? tdBlocks.getRepresentative(u) : u);
+	}
+	
 	public Collection<Unit> getResultsOfMethod(SootMethod m) {
 		Collection<Unit> res = new ArrayList<>();
 		if (m.hasActiveBody()) {
-			// match
+			// match: hash join of the top-down facts with the bottom-up
+			// facts at each unit, where (interned) facts are probed in
+			// the result sets of the bottom-up pass
+			UnitNumbering numbering = UnitNumbering.INSTANCE;
 			for (Unit u : m.getActiveBody().getUnits()) {
-				Set<StatementSequence> buRes = buResults.ifdsResultsAt(u);
-				Set<StatementSequence> tdRes = tdSolver.ifdsResultsAt(u);
-				_matchLoop:
+				Set<StatementSequence> tdRes = topDownResultsAt(u);
+				if (tdRes.isEmpty()) {
+					continue;
+				}
+				int id = numbering.getIdIfPresent(u);
+				Set<StatementSequence> buRes = buResults.ifdsResultsAt(id);
 				for (StatementSequence tdFact : tdRes) {
 					if (tdFact.isEpsilon()
-							&& u.hasTag(BottomUpReachableTag.NAME)) {
+							? id >= 0 && bottomUpReachable.get(id)
+							: buRes != null && buRes.contains(tdFact)) {
 						res.add(u);
-						break _matchLoop;
-					} else {
-						for (StatementSequence buFact : buRes) {
-							if (buFact.getStmtSeq().equals(tdFact.getStmtSeq())) {
-								res.add(u);
-								break _matchLoop;
-							}
-						}
+						break;
 					}
 				}
 			}
@@ -397,39 +471,101 @@ public class Analysis {
 		return res;
 	}
 	
-	public Collection<Unit> getResultCollection() {
-		if (buResults != null && tdSolver != null) {
-			Collection<Unit> results = new ArrayList<>();
-			fwICFG.allMethods().forEach(m -> results.addAll(getResultsOfMethod(m)));
-			return results;
-		} else {
-			throw new RuntimeException("Solvers are not initialed, please call analyse().");
+	/**
+	 * Match the results of `methods` in parallel, in the order of `methods`.
+	 */
+	private List<Collection<Unit>> getResultsOfMethods(List<SootMethod> methods) {
+		ForkJoinPool pool = new ForkJoinPool(numThreads);
+		try {
+			return pool.submit(() -> methods.parallelStream()
+						.map(this::getResultsOfMethod)
+						.collect(Collectors.toList()))
+					.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Result matching is interrupted.", e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException("Result matching fails.", e.getCause());
+		} finally {
+			pool.shutdown();
 		}
 	}
 	
+	public Collection<Unit> getResultCollection() {
+		Collection<Unit> results = new ArrayList<>();
+		getResultMap().values().forEach(results::addAll);
+		return results;
+	}
+	
 	public Map<SootMethod, Collection<Unit>> getResultMap() {
 		if (buResults != null && tdSolver != null) {
 			Map<SootMethod, Collection<Unit>> results = new LinkedHashMap<>();
-			fwICFG.allMethods().forEach(m -> {
-				Collection<Unit> res = getResultsOfMethod(m);
+			List<SootMethod> methods = new ArrayList<>(fwICFG.allMethods());
+			List<Collection<Unit>> methodResults = getResultsOfMethods(methods);
+			for (int i = 0; i < methods.size(); ++i) {
+				Collection<Unit> res = methodResults.get(i);
 				if (!res.isEmpty()) {
-					results.put(m, res);
+					results.put(methods.get(i), res);
 				}
-			});
+			}
+			if (pruneICFG) {
+				addPrunedCallees(results);
+			}
 			return results;
 		} else {
 			throw new RuntimeException("Solvers are not initialed, please call analyse().");
 		}
 	}
 	
+	/**
+	 * Add the units of the methods passed over by pruning, transitively,
+	 * under the calls in `results`. Such a method cannot reach SC, so it
+	 * runs entirely between the SC calls around its call, as do the
+	 * methods it calls, which are passed over as well.
+	 */
+	private void addPrunedCallees(Map<SootMethod, Collection<Unit>> results) {
+		Set<SootMethod> visited = new HashSet<>();
+		Deque<SootMethod> worklist = new ArrayDeque<>();
+		results.values().forEach(units -> units.forEach(u -> {
+			if (fwICFG.isCallStmt(u)) {
+				for (SootMethod callee : fwICFG.getPrunedCalleesOfCallAt(u)) {
+					if (visited.add(callee)) {
+						worklist.add(callee);
+					}
+				}
+			}
+		}));
+		while (!worklist.isEmpty()) {
+			SootMethod m = worklist.poll();
+			if (!m.hasActiveBody()) {
+				continue;
+			}
+			Collection<Unit> units = new ArrayList<>(m.getActiveBody().getUnits());
+			results.put(m, units);
+			units.forEach(u -> {
+				if (fwICFG.isCallStmt(u)) {
+					for (SootMethod callee : fwICFG.getPrunedCalleesOfCallAt(u)) {
+						if (visited.add(callee)) {
+							worklist.add(callee);
+						}
+					}
+				}
+			});
+		}
+	}
+	
 	public void queryBottomUpResultsOf(SootMethod m) {
 		Debug.println("/\\ Bottom-Up results:");
-		Debug.queryResultsOf(buSolver, m);
+		if (buSolver != null) {
+			Debug.queryResultsOf(buSolver, m);
+		} else {
+			Debug.queryResultsOf(buResults::ifdsResultsAt, m);
+		}
 	}
 	
 	public void queryTopDownResultsOf(SootMethod m) {
 		Debug.println("\\/ Top-Down results:");
-		Debug.queryResultsOf(tdSolver, m);
+		Debug.queryResultsOf(this::topDownResultsAt, m);
 	}
 	
 	public void dumpResult() {
@@ -450,12 +586,4 @@ public class Analysis {
 		});
 		
 	}
-	
-	public void cleanTag(String tagName) {
-		fwICFG.allNodes().forEach(n -> {
-			while (n.hasTag(tagName)) {
-				n.removeTag(tagName);
-			}
-		});
-	}
 }
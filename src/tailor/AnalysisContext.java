@@ -0,0 +1,127 @@
+/* Tailor - Program Tailoring: Slicing by Sequential Criteria
+ *
+ * Copyright (C) 2016 Yue Li, Tian Tan, Jingling Xue
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package tailor;
+
+import heros.solver.Pair;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import soot.SootMethod;
+import soot.Unit;
+import tailor.extension.ExtensionFinder.AllocationSites;
+import tailor.extension.tagger.BranchTagger;
+import tailor.extension.tagger.ConstructorCallTagger;
+import tailor.extension.tagger.MethodTagger;
+import tailor.icfg.JimpleBasedICFG;
+import tailor.icfg.util.InterCycleFinder;
+import tailor.icfg.util.IntraCycleFinder;
+import tailor.icfg.util.MethodCFGStore;
+import tailor.icfg.util.MethodCFGStore.GraphKind;
+
+/**
+ * The structures of the program which do not depend on the SC.
+ * They are built once (lazily) and shared by the analyses of all
+ * SCs, i.e., of all tail groups in Driver:
+ * - the base ICFG, whose unit graphs and call-graph caches
+ *   are shared by the blocked ICFGs of each analysis;
+ * - the intra-procedural cycles;
+ * - the method tags used by SC extension;
+ * - the allocation sites used by ExtensionFinder.
+ *
+ * The blocked ICFGs, the inter-procedural cycles and the cycle tags
+ * depend on the units of the SC, so they are still built per analysis.
+ */
+public class AnalysisContext {
+
+	private final JimpleBasedICFG icfg;
+
+	private Map<Pair<Unit, Unit>, Set<Unit>> intraCycles;
+	private boolean methodsTagged = false;
+	private AllocationSites allocationSites;
+
+	public AnalysisContext() {
+		this(new JimpleBasedICFG());
+	}
+
+	public AnalysisContext(JimpleBasedICFG icfg) {
+		this.icfg = icfg;
+	}
+
+	public JimpleBasedICFG getICFG() {
+		return icfg;
+	}
+
+	public synchronized Map<Pair<Unit, Unit>, Set<Unit>> getIntraCycles() {
+		if (intraCycles == null) {
+			intraCycles = findIntraCycles();
+		}
+		return intraCycles;
+	}
+
+	public synchronized void tagMethods() {
+		if (!methodsTagged) {
+			MethodTagger[] methodTaggers = {
+				BranchTagger.INSTANCE,
+				ConstructorCallTagger.INSTANCE,
+			};
+			icfg.allMethods().forEach(m -> {
+				for (MethodTagger tagger : methodTaggers) {
+					tagger.tag(m);
+				}
+			});
+			methodsTagged = true;
+		}
+	}
+
+	public synchronized AllocationSites getAllocationSites() {
+		if (allocationSites == null) {
+			allocationSites = new AllocationSites(icfg);
+		}
+		return allocationSites;
+	}
+
+	private Map<Pair<Unit, Unit>, Set<Unit>> findIntraCycles() {
+		IntraCycleFinder intraFinder = new IntraCycleFinder();
+		Map<Pair<Unit, Unit>, Set<Unit>> intraCycles = new HashMap<>();
+		for (SootMethod m : icfg.allMethods()) {
+			//if (!m.getDeclaringClass().isApplicationClass()) continue;
+			if (m.hasActiveBody()) {
+				Map<Pair<Unit, Unit>, Set<Unit>> cycles =
+						intraFinder.find(
+								MethodCFGStore.INSTANCE.getUnitCFG(m, GraphKind.EXCEPTIONAL_UNIT),
+								m);
+				// examine intra-procedural cycles
+				if (!cycles.isEmpty()) {
+					System.out.println("Found back edges in " + m + " :");
+					cycles.keySet().forEach(p -> {
+						System.out.println("> " + p.getO1() + " -> " + p.getO2());
+					});
+					System.out.println();
+					System.out.println("Redirections:");
+					InterCycleFinder.printMap(cycles);
+					System.out.println();
+				}
+				intraCycles.putAll(cycles);
+			}
+		}
+		return intraCycles;
+	}
+}
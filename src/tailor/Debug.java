@@ -23,6 +23,7 @@ import java.io.File;
 import java.io.FileWriter;
 import java.nio.file.Paths;
 import java.util.Set;
+import java.util.function.Function;
 
 import soot.SootMethod;
 import soot.Unit;
@@ -94,12 +95,16 @@ public class Debug {
 	}
 
 	public static void queryResultsOf(JimpleIFDSSolver<?, ?> solver, SootMethod m) {
+		queryResultsOf(u -> solver.ifdsResultsAt(u), m);
+	}
+
+	public static void queryResultsOf(Function<Unit, Set<?>> resultsAt, SootMethod m) {
 		Debug.println("======================================================================================");
 		Debug.println("IFDS results in :" + m);
 		m.getActiveBody().getUnits().
 			forEach(u -> {
 				Debug.println("%%: {" + u + "}");
-				Set<?> results = solver.ifdsResultsAt(u);
+				Set<?> results = resultsAt.apply(u);
 				results.forEach(fact -> Debug.println("= " + fact));
 				Debug.println("-");
 			});
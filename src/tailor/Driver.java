@@ -23,12 +23,19 @@ import java.io.IOException;
 import java.io.PrintStream;
 import java.io.PrintWriter;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
 import soot.G;
@@ -42,14 +49,18 @@ import soot.jimple.Stmt;
 import soot.tagkit.Tag;
 import tailor.icfg.ICFG;
 import tailor.icfg.JimpleBasedICFG;
+import tailor.icfg.UnitGraphStore;
+import tailor.icfg.util.MethodCFGStore;
 import tailor.ifds.StatementSequence;
-import tailor.tag.BottomUpReachableTag;
+import tailor.multi.MultiTailAnalysis;
 
 import com.google.common.io.ByteStreams;
 
 public class Driver {
 	
 	static ICFG<Unit, SootMethod> icfg;
+	// built once and shared by the analyses of all tails
+	static AnalysisContext context;
 	
 	private static long beginTime, endTime;
 	
@@ -71,7 +82,8 @@ public class Driver {
 			protected void internalTransform(String phaseName,
 					Map<String, String> options) {
 				
-				icfg = new JimpleBasedICFG();
+				context = new AnalysisContext(new JimpleBasedICFG());
+				icfg = context.getICFG();
 				endTime = System.currentTimeMillis();
 				System.out.println("elapsed time: " + costTimeToString(beginTime, endTime));
 				System.out.println();
@@ -84,25 +96,40 @@ public class Driver {
 				// 1. Read and group SCs by tail
 				System.out.println("Reading sequential criteria (SC) ...");
 				File scFile = new File(Options.getSCFileName());
-				Set<StatementSequence> seqs = Analysis.readSC(scFile);
+				Set<StatementSequence> seqs = Analysis.readSC(scFile, icfg);
 				if (seqs.isEmpty()) {
 					System.out.println("None of legal SC is given.");
 					System.out.println();					
 				}
 				Map<Unit, Set<StatementSequence>> facts = groupFactsByTail(seqs);
 				
-				// 2. Analyze SCs group by group
-				Map<Unit, Map<SootMethod, Collection<Unit>>> results = new HashMap<>();
-				facts.forEach((tail, sc) -> {
-					
-					System.out.printf("%d statement sequence(s) in the SC:\n", sc.size());
-					sc.forEach(fact -> System.out.println("> " + toSCFormat(icfg, fact)));
+				// 2. Analyze SCs group by group, or all groups at once
+				MultiTailAnalysis multiTail = null;
+				if (Options.isMultiTail() && !facts.isEmpty()) {
+					System.out.println("Program tailoring of all tails starts.");
+					multiTail = runMultiTailAnalysis(facts);
+					System.out.println("Program tailoring of all tails finishes.");
 					System.out.println();
+				}
+				final MultiTailAnalysis mta = multiTail;
+				Map<Unit, Map<SootMethod, Collection<Unit>>> results = new ConcurrentHashMap<>();
+				BiConsumer<Unit, Set<StatementSequence>> tailorGroup = (tail, sc) -> {
 					
-					System.out.println("Program tailoring starts.");
-					Map<SootMethod, Collection<Unit>> resultMap = runAnalysis(tail, sc);
-					System.out.println("Program tailoring finishes.");
-					System.out.println();
+					// print the SC at once, as groups may be analyzed in parallel
+					StringBuilder scInfo = new StringBuilder();
+					scInfo.append(String.format("%d statement sequence(s) in the SC:\n", sc.size()));
+					sc.forEach(fact -> scInfo.append("> " + toSCFormat(icfg, fact) + "\n"));
+					System.out.println(scInfo);
+					
+					Map<SootMethod, Collection<Unit>> resultMap;
+					if (mta != null) {
+						resultMap = mta.getResultMap(tail);
+					} else {
+						System.out.println("Program tailoring starts.");
+						resultMap = runAnalysis(tail, sc);
+						System.out.println("Program tailoring finishes.");
+						System.out.println();
+					}
 					
 					if (resultMap.isEmpty()) {
 						System.out.println("The tailored program is empty,"
@@ -118,7 +145,21 @@ public class Driver {
 							.toString();
 					System.out.printf("Dumping analysis results to %s ...\n", outFileName);
 					outputResult(resultMap, outFileName);
-				});
+				};
+				if (mta == null && Options.getGroupThreads() > 1) {
+					// The groups share the read-only ICFG and the method tags,
+					// which do not depend on the SC and are added once under
+					// the lock of the context; the cycles are marked per group.
+					// Hence they are analyzed independently, each dumping its
+					// results as soon as it finishes. Each group solves on its
+					// own pool of -threads threads, so up to
+					// group-threads * threads threads run at once.
+					runInParallel(facts, tailorGroup, Options.getGroupThreads());
+				} else {
+					facts.forEach(tailorGroup);
+				}
+				Debug.println(UnitGraphStore.INSTANCE);
+				Debug.println(MethodCFGStore.INSTANCE);
 				Debug.close();
 				System.out.println("Tailor finishes.");
 			}
@@ -154,23 +195,66 @@ public class Driver {
 	public static String toSCFormat(ICFG<Unit, SootMethod> icfg,
 			StatementSequence fact) {
 		StringBuilder sb = new StringBuilder();
-		fact.getStmtSeq().forEach(call -> {
+		fact.forEach(call -> {
 			sb.append(toSCFormat(call, icfg.getMethodOf(call)) + ";");
 		});
 		return sb.toString();
 	}
 	
+	public static void runInParallel(Map<Unit, Set<StatementSequence>> facts,
+			BiConsumer<Unit, Set<StatementSequence>> tailorGroup,
+			int groupThreads) {
+		ForkJoinPool pool = new ForkJoinPool(groupThreads);
+		try {
+			List<Callable<Void>> tasks = new ArrayList<>();
+			facts.forEach((tail, sc) -> tasks.add(() -> {
+				tailorGroup.accept(tail, sc);
+				return null;
+			}));
+			for (Future<Void> future : pool.invokeAll(tasks)) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Program tailoring is interrupted.", e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException("Program tailoring fails.", e.getCause());
+		} finally {
+			pool.shutdown();
+		}
+	}
+	
 	public static Map<SootMethod, Collection<Unit>> runAnalysis(
 			Unit tail,
 			Set<StatementSequence> sc) {
 		
-		Analysis ra = new Analysis(sc,
+		if (context == null) {
+			context = new AnalysisContext();
+		}
+		Analysis ra = new Analysis(context, sc,
 				Options.isRetainCycle(),
-				Options.isExtendSC());
+				Options.isExtendSC(),
+				Options.getThreads());
+		ra.setMemoryLean(Options.isMemoryLean());
+		ra.setCompactICFG(Options.isCompactICFG());
+		ra.setPruneICFG(Options.isPruneICFG());
+		ra.setBlockICFG(Options.isBlockICFG());
 		ra.analyse();
-		Map<SootMethod, Collection<Unit>> resultMap = ra.getResultMap();
-		ra.cleanTag(BottomUpReachableTag.NAME);
-		return resultMap;
+		return ra.getResultMap();
+	}
+	
+	public static MultiTailAnalysis runMultiTailAnalysis(
+			Map<Unit, Set<StatementSequence>> facts) {
+		
+		if (context == null) {
+			context = new AnalysisContext();
+		}
+		MultiTailAnalysis mta = new MultiTailAnalysis(context, facts,
+				Options.isRetainCycle(),
+				Options.isExtendSC(),
+				Options.getThreads());
+		mta.analyse();
+		return mta;
 	}
 	
 	public static String toFileName(Unit tail, String descr) {
@@ -30,6 +30,15 @@ public class Options {
 	private static boolean excludeLibrary = false;
 	private static boolean excludeLibraryExtension = false;
 	private static List<String> blockPackagePrefixs = new ArrayList<>();
+	private static int threads = Runtime.getRuntime().availableProcessors();
+	private static boolean multiTail = false;
+	// the groups analyzed at once, each on `threads` threads, i.e.,
+	// up to groupThreads * threads threads in total
+	private static int groupThreads = 1;
+	private static boolean memoryLean = false;
+	private static boolean compactICFG = false;
+	private static boolean pruneICFG = false;
+	private static boolean blockICFG = false;
 
 	public static String[] processArgs(String[] args) {
 		List<String> newArgs = new ArrayList<>();
@@ -55,6 +64,27 @@ public class Options {
 			} else if (args[i].equals("-block-package-prefix")) {
 				addBlockPackagePrefixs(args[i + 1]);
 				++i;
+			} else if (args[i].equals("-threads")) {
+				setThreads(Integer.parseInt(args[i + 1]));
+				++i;
+			} else if (args[i].equals("-multi-tail")) {
+				setMultiTail(Boolean.parseBoolean(args[i + 1]));
+				++i;
+			} else if (args[i].equals("-group-threads")) {
+				setGroupThreads(Integer.parseInt(args[i + 1]));
+				++i;
+			} else if (args[i].equals("-memory-lean")) {
+				setMemoryLean(Boolean.parseBoolean(args[i + 1]));
+				++i;
+			} else if (args[i].equals("-compact-icfg")) {
+				setCompactICFG(Boolean.parseBoolean(args[i + 1]));
+				++i;
+			} else if (args[i].equals("-prune-icfg")) {
+				setPruneICFG(Boolean.parseBoolean(args[i + 1]));
+				++i;
+			} else if (args[i].equals("-block-icfg")) {
+				setBlockICFG(Boolean.parseBoolean(args[i + 1]));
+				++i;
 			} else {
 				newArgs.add(args[i]);
 			}
@@ -118,5 +148,67 @@ public class Options {
 	public static void addBlockPackagePrefixs(String prefix) {
 		Options.blockPackagePrefixs.add(prefix);
 	}
+
+	public static int getThreads() {
+		return threads;
+	}
+
+	public static void setThreads(int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("The number of threads should be positive: " + threads);
+		}
+		Options.threads = threads;
+	}
+
+	public static boolean isMultiTail() {
+		return multiTail;
+	}
+
+	public static void setMultiTail(boolean multiTail) {
+		Options.multiTail = multiTail;
+	}
+
+	public static int getGroupThreads() {
+		return groupThreads;
+	}
+
+	public static void setGroupThreads(int groupThreads) {
+		if (groupThreads < 1) {
+			throw new IllegalArgumentException("The number of group threads should be positive: " + groupThreads);
+		}
+		Options.groupThreads = groupThreads;
+	}
+
+	public static boolean isMemoryLean() {
+		return memoryLean;
+	}
+
+	public static void setMemoryLean(boolean memoryLean) {
+		Options.memoryLean = memoryLean;
+	}
+
+	public static boolean isCompactICFG() {
+		return compactICFG;
+	}
+
+	public static void setCompactICFG(boolean compactICFG) {
+		Options.compactICFG = compactICFG;
+	}
+
+	public static boolean isPruneICFG() {
+		return pruneICFG;
+	}
+
+	public static void setPruneICFG(boolean pruneICFG) {
+		Options.pruneICFG = pruneICFG;
+	}
+
+	public static boolean isBlockICFG() {
+		return blockICFG;
+	}
+
+	public static void setBlockICFG(boolean blockICFG) {
+		Options.blockICFG = blockICFG;
+	}
 	
 }
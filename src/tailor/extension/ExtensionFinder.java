@@ -55,19 +55,19 @@ import soot.jimple.spark.sets.PointsToSetInternal;
 import soot.toolkits.scalar.Pair;
 import tailor.Debug;
 import tailor.Options;
+import tailor.extension.tagger.CycleTagger.CycleMarks;
 import tailor.icfg.BlockedJimpleBasedICFG;
 import tailor.icfg.ICFG;
 import tailor.ifds.StatementSequence;
 import tailor.ifds.StatementSequenceUtil;
 import tailor.tag.BranchTag;
 import tailor.tag.ConstructorCallTag;
-import tailor.tag.InterCycleTag;
-import tailor.tag.IntraCycleTag;
 
 public class ExtensionFinder {
 	
 	private tailor.icfg.ICFG<Unit, SootMethod> icfg;
 	private StatementSequenceUtil util;
+	private CycleMarks cycles;
 	private Set<SootMethod> reachable;
 	
 	private Map<NewExpr, Unit> unitOfNewExpr;
@@ -82,11 +82,25 @@ public class ExtensionFinder {
 	private Map<SootMethod, Boolean> methodToBranchOrVirtualCall = new HashMap<>();
 	
 	public ExtensionFinder(ICFG<Unit, SootMethod> icfg,
-			StatementSequenceUtil util) {
+			StatementSequenceUtil util,
+			CycleMarks cycles) {
+		this(icfg, util, cycles, new AllocationSites(icfg));
+	}
+	
+	/**
+	 * The allocation sites do not depend on the SC, so they
+	 * can be found once and shared by the finders of all SCs.
+	 */
+	public ExtensionFinder(ICFG<Unit, SootMethod> icfg,
+			StatementSequenceUtil util,
+			CycleMarks cycles,
+			AllocationSites allocationSites) {
 		this.icfg = icfg;
 		this.util = util;
+		this.cycles = cycles;
 		this.pta = Scene.v().getPointsToAnalysis();
-		findUnitOfAllocationSite();
+		this.unitOfNewExpr = allocationSites.unitOfNewExpr;
+		this.unitOfNewInstance = allocationSites.unitOfNewInstance;
 		computeReachableMethods();
 	}
 	
@@ -157,28 +171,6 @@ public class ExtensionFinder {
 		}
 	}
 
-	private void findUnitOfAllocationSite() {
-		unitOfNewExpr = new HashMap<NewExpr, Unit>();
-		unitOfNewInstance = new HashMap<Local, Unit>();
-		icfg.allNodes().forEach(unit -> {
-			NewExpr newExpr = getNewExpr(unit);
-			if (newExpr != null) {
-				unitOfNewExpr.put(newExpr, unit);
-			} else if (unit instanceof Stmt) {
-				Stmt stmt = (Stmt) unit;
-				if (stmt.containsInvokeExpr()
-						&& stmt.getInvokeExpr() instanceof InstanceInvokeExpr) {
-					InstanceInvokeExpr iie = (InstanceInvokeExpr) stmt.getInvokeExpr();
-					SootMethod callee = iie.getMethod();
-					if (callee.equals(BlockedJimpleBasedICFG.CONSTRUCTOR_NEWINSTANCE)
-							|| callee.equals(BlockedJimpleBasedICFG.CLASS_NEWINSTANCE)) {
-						unitOfNewInstance.put((Local) iie.getBase(), unit);
-					}
-				}
-			}
-		});
-	}
-	
 	private void computeReachableMethods() {
 		SootMethod main = Scene.v().getMainMethod();
 		Queue<SootMethod> q = new LinkedList<>();
@@ -333,9 +325,7 @@ public class ExtensionFinder {
 		}
 		
 		// Filter out the unit in a loop or in the method which is in a cycle
-		if (unit.hasTag(IntraCycleTag.NAME)
-				|| inMethod.hasTag(IntraCycleTag.NAME)
-				|| inMethod.hasTag(InterCycleTag.NAME)) {
+		if (cycles.isInLoop(unit) || cycles.isInCycle(inMethod)) {
 			return true;
 		}
 		
@@ -415,6 +405,36 @@ public class ExtensionFinder {
 		return false;
 	}
 	
+	/**
+	 * The units of the allocation sites (new statements and
+	 * calls to newInstance()) of the program.
+	 */
+	public static class AllocationSites {
+		
+		private final Map<NewExpr, Unit> unitOfNewExpr = new HashMap<>();
+		private final Map<Local, Unit> unitOfNewInstance = new HashMap<>();
+		
+		public AllocationSites(ICFG<Unit, SootMethod> icfg) {
+			icfg.allNodes().forEach(unit -> {
+				NewExpr newExpr = getNewExpr(unit);
+				if (newExpr != null) {
+					unitOfNewExpr.put(newExpr, unit);
+				} else if (unit instanceof Stmt) {
+					Stmt stmt = (Stmt) unit;
+					if (stmt.containsInvokeExpr()
+							&& stmt.getInvokeExpr() instanceof InstanceInvokeExpr) {
+						InstanceInvokeExpr iie = (InstanceInvokeExpr) stmt.getInvokeExpr();
+						SootMethod callee = iie.getMethod();
+						if (callee.equals(BlockedJimpleBasedICFG.CONSTRUCTOR_NEWINSTANCE)
+								|| callee.equals(BlockedJimpleBasedICFG.CLASS_NEWINSTANCE)) {
+							unitOfNewInstance.put((Local) iie.getBase(), unit);
+						}
+					}
+				}
+			});
+		}
+	}
+	
 	class AllocGetter extends P2SetVisitor {
 		
 		private Hierarchy hierarchy = Scene.v().getActiveHierarchy();
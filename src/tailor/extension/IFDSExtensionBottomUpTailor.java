@@ -50,7 +50,6 @@ public class IFDSExtensionBottomUpTailor extends IFDSBottomUpTailor {
 		public FlowFunction<StatementSequence> getReturnFlowFunction(
 				Unit callSite, SootMethod calleeMethod, Unit exitStmt,
 				Unit returnSite) {
-			addReachableTag(exitStmt);
 			// NOTICE: `callSite` is the true return site, and 
 			// `returnSite` is the true call site.
 			if (fwICFG.getCallersOf(calleeMethod).contains(returnSite)) {
@@ -81,7 +80,7 @@ public class IFDSExtensionBottomUpTailor extends IFDSBottomUpTailor {
 			facts.add(ret);
 			synchronized (this) {
 				System.out.println("[Ext-rela]: " + ret.length());
-				ret.getStmtSeq().forEach(unit -> {
+				ret.forEach(unit -> {
 					System.out.print("  > ");
 					System.out.println(
 							unitToString(unit, fwICFG.getMethodOf(unit)));
@@ -18,25 +18,17 @@
 
 package tailor.extension.tagger;
 
-import java.util.LinkedList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Map;
-import java.util.Queue;
 import java.util.Set;
-import java.util.function.Predicate;
 
 import soot.SootMethod;
-import soot.Unit;
-import soot.jimple.Stmt;
 import soot.toolkits.graph.Block;
-import soot.toolkits.graph.BriefBlockGraph;
 import soot.toolkits.graph.DirectedGraph;
-import soot.toolkits.graph.DominatorsFinder;
-import soot.toolkits.graph.MHGDominatorsFinder;
-import soot.toolkits.graph.MHGPostDominatorsFinder;
-import tailor.icfg.util.NoExceptionGraph;
+import tailor.icfg.util.ControlDependenceGraph;
+import tailor.icfg.util.DominatorTreeFinder;
+import tailor.icfg.util.MethodCFG;
+import tailor.icfg.util.MethodCFGStore;
 import tailor.tag.BranchTag;
 
 
@@ -45,13 +37,14 @@ public enum BranchTagger implements MethodTagger {
 	INSTANCE;
 
 	/**
-	 * Given a method, tag the unit which is in an if-else or switch-case branch.
+	 * Given a method, tag the unit which is in a branch, i.e., which has
+	 * a non-trivial control dependence (see findBranchNode()).
 	 */
 	public void tag(SootMethod m) {
 		if (!m.hasTag(BranchTag.NAME)) {
-			NoExceptionGraph<Block> g = new NoExceptionGraph<>(
-					new BriefBlockGraph(m.getActiveBody()));
-			Collection<Block> branchBlocks = findBranchNode(g);
+			MethodCFG<Block> cfg = MethodCFGStore.INSTANCE.getBlockCFG(m);
+			Collection<Block> branchBlocks = findBranchNode(cfg.getGraph(),
+					cfg.getDominators(), cfg.getControlDependences());
 			branchBlocks.forEach(block -> {
 				block.forEach(u -> u.addTag(BranchTag.INSTANCE));
 			});
@@ -62,129 +55,41 @@ public enum BranchTagger implements MethodTagger {
 	}
 	
 	/**
-	 * Given a control-flow graph, find the node (Unit or Block) which is in
-	 * an if-else or switch-case branch. Notice that only nodes within
+	 * Given a control-flow graph, find the node (Unit or Block) which is
+	 * in a branch, i.e., which is control dependent on a branch node that
+	 * it does not dominate, such as the arms of an if (with or without
+	 * else) or a switch-case. Notice that only nodes within
 	 * unexceptionally control flow are considered. 
 	 */
 	public <N> Collection<N> findBranchNode(DirectedGraph<N> graph) {
-		DominatorsFinder<N> domFinder = new MHGDominatorsFinder<>(graph);
-		DominatorsFinder<N> postDomFinder = new MHGPostDominatorsFinder<>(graph);
-		Map<N, Set<N>> doms = new HashMap<>();
-		Map<N, Set<N>> postDoms = new HashMap<>();
-		graph.forEach(n -> {
-			domFinder.getDominators(n).forEach(dom -> {
-				if (!doms.containsKey(dom)) {
-					doms.put(dom, new HashSet<>());
-				}
-				if (dom != n) {
-					doms.get(dom).add(n);
-				}
-			});
-			postDomFinder.getDominators(n).forEach(postDom -> {
-				if (!postDoms.containsKey(postDom)) {
-					postDoms.put(postDom, new HashSet<>());
-				}
-				if (postDom != n) {
-					postDoms.get(postDom).add(n);
-				}
-			});
-		});
+		return findBranchNode(graph,
+				DominatorTreeFinder.dominators(graph),
+				new ControlDependenceGraph<>(graph,
+						DominatorTreeFinder.postDominators(graph)));
+	}
+	
+	/**
+	 * A node is in a branch iff it has a non-trivial control dependence,
+	 * i.e., it is control dependent on a branch node which it does not
+	 * dominate. The other dependences of a node are those on itself or
+	 * on the condition of a loop entered through it (e.g., the body of
+	 * a do-while loop), so the node is executed whenever its region is.
+	 * Nested and chained branches need no special handling, as a node
+	 * depends directly on the innermost branches deciding whether it
+	 * is executed.
+	 */
+	public <N> Collection<N> findBranchNode(DirectedGraph<N> graph,
+			DominatorTreeFinder<N> domFinder,
+			ControlDependenceGraph<N> cdg) {
 		Set<N> res = new HashSet<>();
-		BranchNodePred<N> branchNodePred = new BranchNodePred<>(graph, doms, postDoms);
 		graph.forEach(n -> {
-			if (branchNodePred.test(n)) {
-				res.add(n);
+			for (N branch : cdg.getDependencesOf(n)) {
+				if (!domFinder.isDominatedBy(branch, n)) {
+					res.add(n);
+					break;
+				}
 			}
 		});
 		return res;
 	}
-	
-	private class BranchNodePred<N> implements Predicate<N> {
-
-		private DirectedGraph<N> graph;
-		private Map<N, Set<N>> doms, postDoms;
-		
-		public BranchNodePred(DirectedGraph<N> graph,
-				Map<N, Set<N>> doms, Map<N, Set<N>> postDoms) {
-			this.graph = graph;
-			this.doms = doms;
-			this.postDoms = postDoms;
-		}
-		
-		@Override
-		public boolean test(N n) {
-			// Handle nested and chained branches. Chained branch is
-			// a special nested branch.
-			int size = graph.size();
-			if (doms.get(n).size() + postDoms.get(n).size() + 1 < size) {
-				N branch = findLowestBranch(n);
-				while (branch != null) {
-					for (N branchSucc : graph.getSuccsOf(branch)) {
-						if (branchSucc != n
-								&& !doms.get(branchSucc).contains(n)
-								&& !graph.getSuccsOf(n).contains(branchSucc)
-//								&& otherBranchHasInvoke(branchSucc, branch)
-								) {
-							return true;
-						}
-					}
-					branch = findLowestBranch(branch);
-				}
-			}
-			return false;
-		}
-		
-		@SuppressWarnings("unused")
-		private boolean otherBranchHasInvoke(N n, N branch) {
-			Queue<N> queue = new LinkedList<>();
-			Set<N> visited = new HashSet<>();
-			queue.add(n);
-			while (!queue.isEmpty()) {
-				N node = queue.poll();
-				if (visited.add(node)) {
-					if (containsInvoke(node)) {
-						return true;
-					}
-					graph.getSuccsOf(node).forEach(succ -> {
-						if (!postDoms.get(succ).contains(branch)) {
-							queue.add(succ);
-						}
-					});
-				}
-			}
-			return false;
-		}
-		
-		private N findLowestBranch(N n) {
-			N res = null;
-			Queue<N> queue = new LinkedList<>(graph.getPredsOf(n));
-			Set<N> visited = new HashSet<>();
-			while (!queue.isEmpty()) {
-				N node = queue.poll();
-				if (node != n && visited.add(node)) {
-					if (doms.get(node).contains(n)
-							&& !postDoms.get(n).contains(node)) {
-						res = node;
-						break;
-					}
-					queue.addAll(graph.getPredsOf(node));
-				}
-			}
-			return res;
-		}
-
-		private boolean containsInvoke(N n) {
-			if (n instanceof Block) {
-				Block b = (Block) n;
-				for (Unit unit : b) {
-					if (((Stmt) unit).containsInvokeExpr()) {
-						return true;
-					}
-				}
-				return false;
-			} else {
-				return ((Stmt) n).containsInvokeExpr();
-			}
-		}
-	}
 }
@@ -18,80 +18,118 @@
 
 package tailor.extension.tagger;
 
-import heros.solver.Pair;
-
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
-import soot.Scene;
 import soot.SootMethod;
 import soot.Unit;
-import soot.tagkit.Tag;
-import soot.toolkits.graph.BriefUnitGraph;
-import soot.toolkits.graph.DirectedGraph;
-import soot.toolkits.graph.StronglyConnectedComponentsFast;
 import tailor.icfg.AbstractJimpleBasedICFG;
-import tailor.icfg.util.ICFGCallGraph;
-import tailor.icfg.util.IntraCycleFinder;
-import tailor.icfg.util.NoExceptionGraph;
-import tailor.tag.InterCycleTag;
-import tailor.tag.IntraCycleTag;
+import tailor.icfg.UnitNumbering;
+import tailor.icfg.util.ICFGStronglyConnectedComponents;
+import tailor.icfg.util.MethodCFGStore;
+import tailor.icfg.util.MethodCFGStore.GraphKind;
 
 /**
  * A tagger which marks the units and methods that in a cycle.
- * The units in loop will be attached an IntraCycleTag.
- * The methods in cycle will be attached an InterCycleTag.
+ * The units in loop are marked as in a loop.
+ * The methods in cycle are marked as in a cycle.
  * There are two cases for methods:
  * 1. a method can be reached from a inter-procedural cycles, i.e., recursion.
  * 2. a method can be reached from a intra-procedural cycles, i.e., loops.
  *
+ * The cycles depend on the (blocked) ICFG, i.e., on the SC, so the marks
+ * are returned as CycleMarks owned by the analysis of the SC rather than
+ * attached to the units and methods shared by the analyses of all SCs.
  */
-public enum CycleTagger implements ICFGTagger {
+public enum CycleTagger {
 	// Enable singleton pattern
 	INSTANCE;
 	
-	private IntraCycleFinder cycleFinder = new IntraCycleFinder();
-	
-	@Override
-	public void tag(AbstractJimpleBasedICFG icfg) {
-		// Tag inter-procedural cycles, i.e., recursion.
-		ICFGCallGraph cg = new ICFGCallGraph(icfg, Scene.v().getMainMethod());
-		StronglyConnectedComponentsFast<SootMethod> cgscc =
-				new StronglyConnectedComponentsFast<>(cg);
-		cgscc.getTrueComponents().forEach(scc -> {
-			scc.forEach(m -> tagAllReachableMethods(m, cg, InterCycleTag.INSTANCE));
+	public CycleMarks mark(AbstractJimpleBasedICFG icfg) {
+		CycleMarks marks = new CycleMarks();
+		// Mark inter-procedural cycles, i.e., recursion.
+		ICFGStronglyConnectedComponents<Unit, SootMethod> cg =
+				new ICFGStronglyConnectedComponents<>(icfg, icfg.allMethods());
+		cg.getTrueComponents().forEach(scc -> {
+			scc.forEach(m -> markAllReachableMethods(m, cg, marks));
 		});
 		
-		// Tag intra-procedural cycles, i.e., loops.
+		// Mark intra-procedural cycles, i.e., loops.
 		icfg.allMethods().forEach(m -> {
-			DirectedGraph<Unit> graph =
-					new NoExceptionGraph<>(new BriefUnitGraph(m.getActiveBody()));
-			Set<Pair<Unit, Unit>> backEdges = cycleFinder.findBackEdges(graph);
-			Map<Unit, Set<Unit>> loops = cycleFinder.computeLoops(graph, backEdges);
+			Map<Unit, Set<Unit>> loops = MethodCFGStore.INSTANCE
+					.getUnitCFG(m, GraphKind.BRIEF_UNIT)
+					.getLoops();
 			loops.values().forEach(loopNodes -> loopNodes.forEach(u -> {
-				tagUnit(u, icfg, cg, IntraCycleTag.INSTANCE);
+				markUnit(u, icfg, cg, marks);
 			}));
 		});
+		return marks;
 	}
 
-	private void tagUnit(Unit u,
+	private void markUnit(Unit u,
 			AbstractJimpleBasedICFG icfg,
-			ICFGCallGraph cg,
-			Tag t) {
-		if (!u.hasTag(t.getName())) {
-			u.addTag(t);
+			ICFGStronglyConnectedComponents<Unit, SootMethod> cg,
+			CycleMarks marks) {
+		if (marks.markInLoop(u)) {
 			if (icfg.isCallStmt(u)) {
 				icfg.getCalleesOfCallAt(u).forEach(callee -> {
-					tagAllReachableMethods(callee, cg, t);
+					markAllReachableMethods(callee, cg, marks);
 				});
 			}
 		}
 	}
 	
-	private void tagAllReachableMethods(SootMethod m, ICFGCallGraph cg, Tag t) {
-		if (!m.hasTag(t.getName())) {
-			m.addTag(t);
-			cg.getSuccsOf(m).forEach(callee -> tagAllReachableMethods(callee, cg, t));
+	private void markAllReachableMethods(SootMethod m,
+			ICFGStronglyConnectedComponents<Unit, SootMethod> cg,
+			CycleMarks marks) {
+		// the methods reachable from a marked method have been marked
+		if (!marks.markInCycle(m)) {
+			return;
+		}
+		Deque<Integer> worklist = new ArrayDeque<>();
+		worklist.push(cg.getMethodId(m));
+		while (!worklist.isEmpty()) {
+			for (int callee : cg.getSuccsOf(worklist.pop())) {
+				if (marks.markInCycle(cg.getMethod(callee))) {
+					worklist.push(callee);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * The units in a loop, by ID (see UnitNumbering), and the methods
+	 * reachable from a loop or a recursion.
+	 */
+	public static class CycleMarks {
+		
+		private final BitSet loopUnits = new BitSet();
+		private final Set<SootMethod> cycleMethods = new HashSet<>();
+		
+		private boolean markInLoop(Unit u) {
+			int id = UnitNumbering.INSTANCE.getId(u);
+			if (loopUnits.get(id)) {
+				return false;
+			}
+			loopUnits.set(id);
+			return true;
+		}
+		
+		private boolean markInCycle(SootMethod m) {
+			return cycleMethods.add(m);
+		}
+		
+		public boolean isInLoop(Unit u) {
+			int id = UnitNumbering.INSTANCE.getIdIfPresent(u);
+			return id >= 0 && loopUnits.get(id);
+		}
+		
+		public boolean isInCycle(SootMethod m) {
+			return cycleMethods.contains(m);
 		}
 	}
 }
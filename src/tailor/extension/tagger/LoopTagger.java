@@ -26,10 +26,11 @@ import java.util.Set;
 
 import soot.SootMethod;
 import soot.Unit;
-import soot.toolkits.graph.BriefUnitGraph;
 import soot.toolkits.graph.DirectedGraph;
 import tailor.icfg.util.IntraCycleFinder;
-import tailor.icfg.util.NoExceptionGraph;
+import tailor.icfg.util.MethodCFGStore;
+import tailor.icfg.util.MethodCFGStore.GraphKind;
+import tailor.icfg.util.UnitCFG;
 import tailor.tag.LoopTag;
 
 public enum LoopTagger implements MethodTagger {
@@ -40,9 +41,8 @@ public enum LoopTagger implements MethodTagger {
 	
 	public void tag(SootMethod m) {
 		if (!m.hasTag(LoopTag.NAME)) {
-			DirectedGraph<Unit> graph =
-					new NoExceptionGraph<>(new BriefUnitGraph(m.getActiveBody()));
-			Set<Unit> loopNodes = computeLoopNodes(graph);
+			Set<Unit> loopNodes = computeLoopNodes(
+					MethodCFGStore.INSTANCE.getUnitCFG(m, GraphKind.BRIEF_UNIT));
 			loopNodes.forEach(u -> u.addTag(LoopTag.INSTANCE));
 			// Mark the method `m` with a LoopTag to represent that `m` 
 			// has been tagged by this tagger.
@@ -50,6 +50,12 @@ public enum LoopTagger implements MethodTagger {
 		}
 	}
 	
+	public Set<Unit> computeLoopNodes(UnitCFG cfg) {
+		Set<Unit> res = new HashSet<>();
+		cfg.getLoops().values().forEach(res::addAll);
+		return res;
+	}
+	
 	public Set<Unit> computeLoopNodes(DirectedGraph<Unit> graph) {
 		Set<Pair<Unit, Unit>> backEdges = cycleFinder.findBackEdges(graph);
 		Map<Unit, Set<Unit>> loops = cycleFinder.computeLoops(graph, backEdges);
@@ -18,11 +18,13 @@
 
 package tailor.extension.tagger;
 
-import soot.Scene;
+import java.util.ArrayList;
+import java.util.List;
+
 import soot.SootMethod;
-import soot.toolkits.graph.StronglyConnectedComponentsFast;
+import soot.Unit;
 import tailor.icfg.AbstractJimpleBasedICFG;
-import tailor.icfg.util.ICFGCallGraph;
+import tailor.icfg.util.ICFGStronglyConnectedComponents;
 import tailor.tag.RecursionTag;
 
 public enum RecursionTagger implements ICFGTagger {
@@ -31,13 +33,13 @@ public enum RecursionTagger implements ICFGTagger {
 	
 	@Override
 	public void tag(AbstractJimpleBasedICFG icfg) {
-		ICFGCallGraph cg = new ICFGCallGraph(icfg, Scene.v().getMainMethod());
-		StronglyConnectedComponentsFast<SootMethod> cgscc =
-				new StronglyConnectedComponentsFast<>(cg);
+		ICFGStronglyConnectedComponents<Unit, SootMethod> cgscc =
+				new ICFGStronglyConnectedComponents<>(icfg, icfg.allMethods());
 		cgscc.getTrueComponents().forEach(scc -> {
+			List<SootMethod> methods = new ArrayList<>(scc);
 			scc.forEach(m -> {
 				if (!m.hasTag(RecursionTag.NAME)) {
-					m.addTag(RecursionTag.getInstance(scc));
+					m.addTag(RecursionTag.getInstance(methods));
 				}
 			});
 		});
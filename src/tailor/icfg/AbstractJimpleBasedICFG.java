@@ -30,7 +30,6 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 import soot.Body;
 import soot.SootMethod;
@@ -38,9 +37,7 @@ import soot.Unit;
 import soot.UnitBox;
 import soot.Value;
 import soot.jimple.Stmt;
-import soot.toolkits.exceptions.UnitThrowAnalysis;
 import soot.toolkits.graph.DirectedGraph;
-import soot.toolkits.graph.ExceptionalUnitGraph;
 
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
@@ -48,17 +45,32 @@ import com.google.common.cache.LoadingCache;
 public abstract class AbstractJimpleBasedICFG implements BiDiICFG<Unit,SootMethod> {
 
 	@DontSynchronize("written by single thread; read afterwards")
-	protected final Map<Unit,Body> unitToOwner = new HashMap<Unit,Body>();
+	protected final Map<Unit,Body> unitToOwner;
+	
+	@DontSynchronize("written by single thread; read afterwards")
+	protected final MethodRegistry methods;
+	
+	@SynchronizedBy("by use of synchronized UnitNumbering class")
+	protected final UnitNumbering numbering = UnitNumbering.INSTANCE;
 	
 	public Set<Unit> allNodes() {
 		return unitToOwner.keySet();
 	}
 	
 	public Set<SootMethod> allMethods() {
-		return unitToOwner.values()
-				.stream()
-				.map(b -> b.getMethod())
-				.collect(Collectors.toSet());
+		return methods.asSet();
+	}
+	
+	public MethodRegistry getMethodRegistry() {
+		return methods;
+	}
+	
+	public UnitNumbering getUnitNumbering() {
+		return numbering;
+	}
+	
+	public int getUnitId(Unit u) {
+		return numbering.getId(u);
 	}
 	
 	public Set<Unit> getReturnsFromWithin(SootMethod m) {
@@ -66,24 +78,28 @@ public abstract class AbstractJimpleBasedICFG implements BiDiICFG<Unit,SootMetho
 	}
 		
 	
-	@SynchronizedBy("by use of synchronized LoadingCache class")
-	protected final LoadingCache<Body,DirectedGraph<Unit>> bodyToUnitGraph = IDESolver.DEFAULT_CACHE_BUILDER.build( new CacheLoader<Body,DirectedGraph<Unit>>() {
-					@Override
-					public DirectedGraph<Unit> load(Body body) throws Exception {
-						return makeGraph(body);
-					}
-				});
+	@SynchronizedBy("by use of the shared UnitGraphStore")
+	protected final UnitGraphStore unitGraphs = UnitGraphStore.INSTANCE;
 	
 	@SynchronizedBy("by use of synchronized LoadingCache class")
-	protected final LoadingCache<SootMethod,List<Value>> methodToParameterRefs = IDESolver.DEFAULT_CACHE_BUILDER.build( new CacheLoader<SootMethod,List<Value>>() {
+	protected final LoadingCache<SootMethod,List<Value>> methodToParameterRefs;
+
+	@SynchronizedBy("by use of synchronized LoadingCache class")
+	protected final LoadingCache<SootMethod,Set<Unit>> methodToCallsFromWithin;
+
+	@SynchronizedBy("by use of synchronized LoadingCache class")
+	protected final LoadingCache<SootMethod,Set<Unit>> methodToReturnsFromWithin;
+	
+	public AbstractJimpleBasedICFG() {
+		unitToOwner = new HashMap<Unit,Body>();
+		methods = new MethodRegistry();
+		methodToParameterRefs = IDESolver.DEFAULT_CACHE_BUILDER.build( new CacheLoader<SootMethod,List<Value>>() {
 					@Override
 					public List<Value> load(SootMethod m) throws Exception {
 						return m.getActiveBody().getParameterRefs();
 					}
 				});
-
-	@SynchronizedBy("by use of synchronized LoadingCache class")
-	protected final LoadingCache<SootMethod,Set<Unit>> methodToCallsFromWithin = IDESolver.DEFAULT_CACHE_BUILDER.build( new CacheLoader<SootMethod,Set<Unit>>() {
+		methodToCallsFromWithin = IDESolver.DEFAULT_CACHE_BUILDER.build( new CacheLoader<SootMethod,Set<Unit>>() {
 					@Override
 					public Set<Unit> load(SootMethod m) throws Exception {
 						Set<Unit> res = null;
@@ -97,9 +113,26 @@ public abstract class AbstractJimpleBasedICFG implements BiDiICFG<Unit,SootMetho
 						return res == null ? Collections.<Unit>emptySet() : res;
 					}
 				});
-
-	@SynchronizedBy("by use of synchronized LoadingCache class")
-	protected final LoadingCache<SootMethod,Set<Unit>> methodToReturnsFromWithin = IDESolver.DEFAULT_CACHE_BUILDER.build( new CacheLoader<SootMethod,Set<Unit>>() {
+		methodToReturnsFromWithin = createReturnsFromWithinCache();
+	}
+	
+	/**
+	 * Share the unit owners, methods, parameter refs and call sites of `shared`
+	 * (the unit graphs are shared by all ICFGs, see UnitGraphStore),
+	 * none of which depends on how the two ICFGs connect the units.
+	 * The return sites are computed from getPredsOf(), which subclasses
+	 * may override, so they are not shared.
+	 */
+	public AbstractJimpleBasedICFG(AbstractJimpleBasedICFG shared) {
+		unitToOwner = shared.unitToOwner;
+		methods = shared.methods;
+		methodToParameterRefs = shared.methodToParameterRefs;
+		methodToCallsFromWithin = shared.methodToCallsFromWithin;
+		methodToReturnsFromWithin = createReturnsFromWithinCache();
+	}
+	
+	private LoadingCache<SootMethod,Set<Unit>> createReturnsFromWithinCache() {
+		return IDESolver.DEFAULT_CACHE_BUILDER.build( new CacheLoader<SootMethod,Set<Unit>>() {
 					@Override
 					public Set<Unit> load(SootMethod m) throws Exception {
 						Set<Unit> res = null;
@@ -113,6 +146,7 @@ public abstract class AbstractJimpleBasedICFG implements BiDiICFG<Unit,SootMetho
 						return res == null ? Collections.<Unit>emptySet() : res;
 					}
 				});
+	}
 	
 	@Override
 	public SootMethod getMethodOf(Unit u) {
@@ -134,11 +168,7 @@ public abstract class AbstractJimpleBasedICFG implements BiDiICFG<Unit,SootMetho
 	}
 
 	public DirectedGraph<Unit> getOrCreateUnitGraph(Body body) {
-		return bodyToUnitGraph.getUnchecked(body);
-	}
-
-	protected DirectedGraph<Unit> makeGraph(Body body) {
-		return new ExceptionalUnitGraph(body, UnitThrowAnalysis.v() ,true);
+		return unitGraphs.getUnitGraph(body);
 	}
 
 	@Override
@@ -194,7 +224,7 @@ public abstract class AbstractJimpleBasedICFG implements BiDiICFG<Unit,SootMetho
 
 	@Override
 	public Set<Unit> allNonCallStartNodes() {
-		Set<Unit> res = new LinkedHashSet<Unit>(unitToOwner.keySet());
+		Set<Unit> res = new LinkedHashSet<Unit>(allNodes());
 		for (Iterator<Unit> iter = res.iterator(); iter.hasNext();) {
 			Unit u = iter.next();
 			if(isStartPoint(u) || isCallStmt(u)) iter.remove();
@@ -204,7 +234,7 @@ public abstract class AbstractJimpleBasedICFG implements BiDiICFG<Unit,SootMetho
 	
 	@Override
 	public Set<Unit> allNonCallEndNodes() {
-		Set<Unit> res = new LinkedHashSet<Unit>(unitToOwner.keySet());
+		Set<Unit> res = new LinkedHashSet<Unit>(allNodes());
 		for (Iterator<Unit> iter = res.iterator(); iter.hasNext();) {
 			Unit u = iter.next();
 			if(isExitStmt(u) || isCallStmt(u)) iter.remove();
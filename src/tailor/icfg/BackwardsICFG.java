@@ -18,8 +18,11 @@
 
 package tailor.icfg;
 
+import heros.SynchronizedBy;
+import heros.solver.IDESolver;
+
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -31,6 +34,9 @@ import soot.Value;
 import soot.toolkits.graph.DirectedGraph;
 import tailor.icfg.JimpleBasedICFG;
 
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
 
 /**
  * Same as {@link JimpleBasedICFG} but based on inverted unit graphs.
@@ -40,8 +46,41 @@ public class BackwardsICFG implements BiDiICFG<Unit,SootMethod> {
 	
 	protected final BiDiICFG<Unit,SootMethod> delegate;
 	
+	// the swapped call edges and node partitions, computed once
+	// from `delegate`, which must not change afterwards
+	@SynchronizedBy("by use of synchronized LoadingCache class")
+	private final LoadingCache<Unit,Collection<SootMethod>> returnSiteToCallees;
+	
+	@SynchronizedBy("by use of synchronized LoadingCache class")
+	private final LoadingCache<SootMethod,Collection<Unit>> methodToBackwardCallers;
+	
+	private volatile Set<Unit> nonCallStartNodes, nonCallEndNodes;
+	
 	public BackwardsICFG(BiDiICFG<Unit,SootMethod> fwICFG) {
 		delegate = fwICFG;
+		returnSiteToCallees = IDESolver.DEFAULT_CACHE_BUILDER.build( new CacheLoader<Unit,Collection<SootMethod>>() {
+					@Override
+					public Collection<SootMethod> load(Unit n) throws Exception {
+						Set<SootMethod> callees = new LinkedHashSet<SootMethod>();
+						for (Unit pred : delegate.getPredsOf(n))
+							if (delegate.isCallStmt(pred))
+								callees.addAll(delegate.getCalleesOfCallAt(pred));
+						return callees.isEmpty()
+								? Collections.<SootMethod>emptySet()
+								: Collections.unmodifiableSet(callees);
+					}
+				});
+		methodToBackwardCallers = IDESolver.DEFAULT_CACHE_BUILDER.build( new CacheLoader<SootMethod,Collection<Unit>>() {
+					@Override
+					public Collection<Unit> load(SootMethod m) throws Exception {
+						Set<Unit> callers = new LinkedHashSet<Unit>();
+						for(Unit forwardCallsite : delegate.getCallersOf(m)) 
+							callers.addAll(delegate.getSuccsOf(forwardCallsite));
+						return callers.isEmpty()
+								? Collections.<Unit>emptySet()
+								: Collections.unmodifiableSet(callers);
+					}
+				});
 	}
 	
 	public BiDiICFG<Unit,SootMethod> getForwardInterproceduralCFG() {
@@ -75,10 +114,14 @@ public class BackwardsICFG implements BiDiICFG<Unit,SootMethod> {
 	//swapped
 	@Override
 	public Set<Unit> allNonCallStartNodes() {
-		Set<Unit> res = new LinkedHashSet<Unit>(delegate.allNodes());
-		for (Iterator<Unit> iter = res.iterator(); iter.hasNext();) {
-			Unit u = iter.next();
-			if(delegate.isExitStmt(u) || delegate.isReturnSite(u)) iter.remove();
+		Set<Unit> res = nonCallStartNodes;
+		if (res == null) {
+			res = new LinkedHashSet<Unit>(delegate.allNodes());
+			for (Iterator<Unit> iter = res.iterator(); iter.hasNext();) {
+				Unit u = iter.next();
+				if(delegate.isExitStmt(u) || delegate.isReturnSite(u)) iter.remove();
+			}
+			nonCallStartNodes = res = Collections.unmodifiableSet(res);
 		}
 		return res;
 	}
@@ -104,10 +147,14 @@ public class BackwardsICFG implements BiDiICFG<Unit,SootMethod> {
 	//swapped
 	@Override
 	public Set<Unit> allNonCallEndNodes() {
-		Set<Unit> res = new LinkedHashSet<Unit>(delegate.allNodes());
-		for (Iterator<Unit> iter = res.iterator(); iter.hasNext();) {
-			Unit u = iter.next();
-			if(delegate.isStartPoint(u) || delegate.isReturnSite(u)) iter.remove();
+		Set<Unit> res = nonCallEndNodes;
+		if (res == null) {
+			res = new LinkedHashSet<Unit>(delegate.allNodes());
+			for (Iterator<Unit> iter = res.iterator(); iter.hasNext();) {
+				Unit u = iter.next();
+				if(delegate.isStartPoint(u) || delegate.isReturnSite(u)) iter.remove();
+			}
+			nonCallEndNodes = res = Collections.unmodifiableSet(res);
 		}
 		return res;
 	}
@@ -133,20 +180,13 @@ public class BackwardsICFG implements BiDiICFG<Unit,SootMethod> {
 	//swapped
 	@Override
 	public Collection<SootMethod> getCalleesOfCallAt(Unit n) {
-		Collection<SootMethod> callees = new HashSet<SootMethod>();
-		for (Unit pred : delegate.getPredsOf(n))
-			if (delegate.isCallStmt(pred))
-				callees.addAll(delegate.getCalleesOfCallAt(pred));
-		return callees;
+		return returnSiteToCallees.getUnchecked(n);
 	}
 
 	//swapped
 	@Override
 	public Collection<Unit> getCallersOf(SootMethod m) {
-		Collection<Unit> callers = new HashSet<Unit>();
-		for(Unit forwardCallsite : delegate.getCallersOf(m)) 
-			callers.addAll(delegate.getSuccsOf(forwardCallsite));
-		return callers;
+		return methodToBackwardCallers.getUnchecked(m);
 	}
 
 	//swapped
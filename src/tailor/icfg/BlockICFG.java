@@ -0,0 +1,305 @@
+/* Tailor - Program Tailoring: Slicing by Sequential Criteria
+ *
+ * Copyright (C) 2016 Yue Li, Tian Tan, Jingling Xue
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package tailor.icfg;
+
+import heros.ThreadSafe;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import soot.SootMethod;
+import soot.Unit;
+import soot.Value;
+import soot.toolkits.graph.DirectedGraph;
+
+/**
+ * A view of a (blocked) forward ICFG in which each straight-line run of
+ * units collapses into one node, i.e., its first unit (the leader).
+ * A unit joins the run of its predecessor if it is the only successor
+ * of its only predecessor, and neither of them is a call, a return
+ * site, a start point, an exit or a kept unit (e.g., a unit of SC).
+ *
+ * As both tailors propagate the facts through the units of such a run
+ * by identity, the results of each unit of the run are those of its
+ * leader, see getRepresentative(), while the solver visits one node
+ * per run.
+ *
+ * The runs follow the edges of the source ICFG (rather than a block
+ * graph of the body), so that the blocked edges are respected, and
+ * the view must be built once the source ICFG is final.
+ */
+@ThreadSafe
+public class BlockICFG implements BiDiICFG<Unit, SootMethod> {
+
+	private final BiDiICFG<Unit, SootMethod> source;
+	private final UnitNumbering numbering = UnitNumbering.INSTANCE;
+
+	// by unit ID: the ID of the leader of its run, or -1 if not a node
+	private final int[] leaderOf;
+	// by unit ID of a leader: the ID of the last unit of its run
+	private final int[] lastOf;
+	// the predecessors of the leaders whose predecessors are not all leaders
+	private final Map<Unit, List<Unit>> leaderPreds = new HashMap<>();
+
+	private final Set<Unit> allNodes;
+	private final Set<Unit> allNonCallStartNodes, allNonCallEndNodes;
+
+	public BlockICFG(BiDiICFG<Unit, SootMethod> source, Predicate<Unit> isKept) {
+		this.source = source;
+		Collection<Unit> units = source.allNodes();
+		int size = 0;
+		for (Unit u : units) {
+			size = Math.max(size, numbering.getId(u) + 1);
+		}
+		leaderOf = new int[size];
+		lastOf = new int[size];
+		Arrays.fill(leaderOf, -1);
+
+		Predicate<Unit> isBoundary = u -> source.isCallStmt(u)
+				|| source.isStartPoint(u)
+				|| source.isExitStmt(u)
+				|| source.isReturnSite(u)
+				|| isKept.test(u);
+		boolean[] joins = new boolean[size];
+		for (Unit u : units) {
+			joins[numbering.getId(u)] = joinsPred(u, isBoundary);
+		}
+		// walk the run from each leader
+		for (Unit u : units) {
+			int leader = numbering.getId(u);
+			if (!joins[leader]) {
+				int last = leader;
+				for (Unit cur = u; ; ) {
+					leaderOf[last] = leader;
+					List<Unit> succs = source.getSuccsOf(cur);
+					if (succs.size() != 1) {
+						break;
+					}
+					cur = succs.get(0);
+					int id = numbering.getId(cur);
+					if (!joins[id] || leaderOf[id] >= 0) {
+						break;
+					}
+					last = id;
+				}
+				lastOf[leader] = last;
+			}
+		}
+		// the units of a cycle of joining units are left alone
+		for (Unit u : units) {
+			int id = numbering.getId(u);
+			if (leaderOf[id] < 0) {
+				leaderOf[id] = id;
+				lastOf[id] = id;
+			}
+		}
+
+		Set<Unit> nodes = new LinkedHashSet<>();
+		for (Unit u : units) {
+			if (isLeader(numbering.getId(u))) {
+				nodes.add(u);
+				List<Unit> preds = source.getPredsOf(u);
+				boolean allLeaders = true;
+				for (Unit pred : preds) {
+					allLeaders &= getRepresentative(pred) == pred;
+				}
+				if (!allLeaders) {
+					Set<Unit> res = new LinkedHashSet<>();
+					preds.forEach(pred -> res.add(getRepresentative(pred)));
+					leaderPreds.put(u, Collections.unmodifiableList(new ArrayList<>(res)));
+				}
+			}
+		}
+		allNodes = Collections.unmodifiableSet(nodes);
+		Set<Unit> nonCallStartNodes = new LinkedHashSet<>(source.allNonCallStartNodes());
+		nonCallStartNodes.retainAll(nodes);
+		allNonCallStartNodes = Collections.unmodifiableSet(nonCallStartNodes);
+		Set<Unit> nonCallEndNodes = new LinkedHashSet<>(source.allNonCallEndNodes());
+		nonCallEndNodes.retainAll(nodes);
+		allNonCallEndNodes = Collections.unmodifiableSet(nonCallEndNodes);
+	}
+
+	private boolean joinsPred(Unit u, Predicate<Unit> isBoundary) {
+		if (isBoundary.test(u)) {
+			return false;
+		}
+		List<Unit> preds = source.getPredsOf(u);
+		if (preds.size() != 1) {
+			return false;
+		}
+		Unit pred = preds.get(0);
+		if (pred == u || isBoundary.test(pred)) {
+			return false;
+		}
+		List<Unit> succs = source.getSuccsOf(pred);
+		return succs.size() == 1 && succs.get(0) == u;
+	}
+
+	public BiDiICFG<Unit, SootMethod> getSource() {
+		return source;
+	}
+
+	private boolean isLeader(int id) {
+		return id >= 0 && id < leaderOf.length && leaderOf[id] == id;
+	}
+
+	/**
+	 * Return the node (the leader of the run) holding the results of
+	 * `u`, or `u` itself if it is not a unit of this ICFG.
+	 */
+	public Unit getRepresentative(Unit u) {
+		int id = numbering.getIdIfPresent(u);
+		if (id < 0 || id >= leaderOf.length || leaderOf[id] < 0) {
+			return u;
+		}
+		return numbering.getUnit(leaderOf[id]);
+	}
+
+	/** Return the last unit of the run of `u`, or `u` if it is not a leader. */
+	private Unit lastOf(Unit u) {
+		int id = numbering.getIdIfPresent(u);
+		return isLeader(id) ? numbering.getUnit(lastOf[id]) : u;
+	}
+
+	@Override
+	public SootMethod getMethodOf(Unit u) {
+		return source.getMethodOf(u);
+	}
+
+	@Override
+	public List<Unit> getSuccsOf(Unit u) {
+		// the successors of a run are leaders
+		return source.getSuccsOf(lastOf(u));
+	}
+
+	@Override
+	public List<Unit> getPredsOf(Unit u) {
+		List<Unit> preds = leaderPreds.get(u);
+		return preds != null ? preds : source.getPredsOf(u);
+	}
+
+	@Override
+	public Collection<SootMethod> getCalleesOfCallAt(Unit u) {
+		return source.getCalleesOfCallAt(u);
+	}
+
+	@Override
+	public Collection<Unit> getReturnSitesOfCallAt(Unit u) {
+		return source.getReturnSitesOfCallAt(u);
+	}
+
+	@Override
+	public List<Unit> getPredsOfCallAt(Unit u) {
+		List<Unit> preds = leaderPreds.get(u);
+		return preds != null ? preds : source.getPredsOfCallAt(u);
+	}
+
+	@Override
+	public Collection<Unit> getCallersOf(SootMethod m) {
+		return source.getCallersOf(m);
+	}
+
+	@Override
+	public Set<Unit> getCallsFromWithin(SootMethod m) {
+		return source.getCallsFromWithin(m);
+	}
+
+	@Override
+	public Set<Unit> getReturnsFromWithin(SootMethod m) {
+		return source.getReturnsFromWithin(m);
+	}
+
+	@Override
+	public Collection<Unit> getStartPointsOf(SootMethod m) {
+		return source.getStartPointsOf(m);
+	}
+
+	@Override
+	public Collection<Unit> getEndPointsOf(SootMethod m) {
+		return source.getEndPointsOf(m);
+	}
+
+	@Override
+	public boolean isCallStmt(Unit u) {
+		return source.isCallStmt(u);
+	}
+
+	@Override
+	public boolean isExitStmt(Unit u) {
+		return source.isExitStmt(u);
+	}
+
+	@Override
+	public boolean isStartPoint(Unit u) {
+		return source.isStartPoint(u);
+	}
+
+	@Override
+	public boolean isReturnSite(Unit u) {
+		return source.isReturnSite(u);
+	}
+
+	@Override
+	public Set<Unit> allNonCallStartNodes() {
+		return allNonCallStartNodes;
+	}
+
+	@Override
+	public Set<Unit> allNonCallEndNodes() {
+		return allNonCallEndNodes;
+	}
+
+	@Override
+	public Set<Unit> allNodes() {
+		return allNodes;
+	}
+
+	@Override
+	public Set<SootMethod> allMethods() {
+		return source.allMethods();
+	}
+
+	@Override
+	public boolean isFallThroughSuccessor(Unit u, Unit succ) {
+		return source.isFallThroughSuccessor(lastOf(u), succ);
+	}
+
+	@Override
+	public boolean isBranchTarget(Unit u, Unit succ) {
+		return source.isBranchTarget(lastOf(u), succ);
+	}
+
+	@Override
+	public DirectedGraph<Unit> getOrCreateUnitGraph(SootMethod m) {
+		return source.getOrCreateUnitGraph(m);
+	}
+
+	@Override
+	public List<Value> getParameterRefs(SootMethod m) {
+		return source.getParameterRefs(m);
+	}
+}
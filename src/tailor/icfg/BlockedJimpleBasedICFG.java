@@ -18,6 +18,8 @@
 
 package tailor.icfg;
 
+import heros.SynchronizedBy;
+import heros.solver.IDESolver;
 import heros.solver.Pair;
 
 import java.util.ArrayList;
@@ -26,6 +28,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -40,6 +43,9 @@ import soot.Unit;
 import soot.jimple.Stmt;
 import tailor.Options;
 
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
 
 /**
  * The ICFG which ignores the callee if it is declared as 
@@ -70,6 +76,31 @@ public abstract class BlockedJimpleBasedICFG extends JimpleBasedICFG {
 	protected Map<SootMethod, Set<Unit>> threadCallers = new HashMap<>();
 	
 	protected boolean excludeLibrary = false;
+	
+	// if not null, calls to the methods out of it are passed over, and
+	// the nodes and methods of this ICFG are those of the retained methods
+	protected Set<SootMethod> retainedMethods = null;
+	private Set<Unit> retainedNodes = null;
+	
+	// The final (blocked) callees and callers, computed once per call
+	// site and method, and recomputed after the blocking has changed.
+	@SynchronizedBy("by use of synchronized LoadingCache class")
+	private final LoadingCache<Unit, Collection<SootMethod>> blockedCalleesOfCall =
+			IDESolver.DEFAULT_CACHE_BUILDER.build(new CacheLoader<Unit, Collection<SootMethod>>() {
+				@Override
+				public Collection<SootMethod> load(Unit u) throws Exception {
+					return freeze(computeCalleesOfCallAt(u));
+				}
+			});
+	
+	@SynchronizedBy("by use of synchronized LoadingCache class")
+	private final LoadingCache<SootMethod, Collection<Unit>> blockedCallersOf =
+			IDESolver.DEFAULT_CACHE_BUILDER.build(new CacheLoader<SootMethod, Collection<Unit>>() {
+				@Override
+				public Collection<Unit> load(SootMethod m) throws Exception {
+					return freeze(computeCallersOf(m));
+				}
+			});
 
 	public static final SootMethod CONSTRUCTOR_NEWINSTANCE = Scene.v().getMethod("<java.lang.reflect.Constructor: java.lang.Object newInstance(java.lang.Object[])>");
 	public static final SootMethod CLASS_NEWINSTANCE = Scene.v().getMethod("<java.lang.Class: java.lang.Object newInstance()>");
@@ -90,6 +121,29 @@ public abstract class BlockedJimpleBasedICFG extends JimpleBasedICFG {
 	public BlockedJimpleBasedICFG(Set<Unit> specifiedUnits,
 			Map<Pair<Unit, Unit>, Set<Unit>> intraCycles,
 			Map<Unit, Set<SootMethod>> interCycles) {
+		initialize(specifiedUnits, intraCycles, interCycles);
+	}
+	
+	/**
+	 * Build the blocked ICFG on top of the caches of `base`,
+	 * see {@link JimpleBasedICFG#JimpleBasedICFG(JimpleBasedICFG)}.
+	 */
+	public BlockedJimpleBasedICFG(JimpleBasedICFG base,
+			Set<Unit> specifiedUnits) {
+		this(base, specifiedUnits, Collections.emptyMap(), Collections.emptyMap());
+	}
+	
+	public BlockedJimpleBasedICFG(JimpleBasedICFG base,
+			Set<Unit> specifiedUnits,
+			Map<Pair<Unit, Unit>, Set<Unit>> intraCycles,
+			Map<Unit, Set<SootMethod>> interCycles) {
+		super(base);
+		initialize(specifiedUnits, intraCycles, interCycles);
+	}
+	
+	private void initialize(Set<Unit> specifiedUnits,
+			Map<Pair<Unit, Unit>, Set<Unit>> intraCycles,
+			Map<Unit, Set<SootMethod>> interCycles) {
 		addIntraCyclesToBeBlocked(intraCycles);
 		addInterCyclesToBeBlocked(interCycles);
 		
@@ -113,6 +167,23 @@ public abstract class BlockedJimpleBasedICFG extends JimpleBasedICFG {
 			excludeLibrary = Options.isExcludeLibrary();
 		}
 		Options.getBlockPackagePrefixs().forEach(this::addBlockedMethodsByPackagePrefix);
+		invalidateCallEdges();
+	}
+	
+	/**
+	 * Drop the computed callees and callers, which must be called
+	 * whenever the blocked call edges change.
+	 */
+	protected void invalidateCallEdges() {
+		blockedCalleesOfCall.invalidateAll();
+		blockedCallersOf.invalidateAll();
+	}
+	
+	private static <E> Collection<E> freeze(Collection<E> collection) {
+		if (collection.isEmpty()) {
+			return Collections.emptyList();
+		}
+		return Collections.unmodifiableList(new ArrayList<>(collection));
 	}
 
 	public void addIntraCyclesToBeBlocked(Map<Pair<Unit, Unit>, Set<Unit>> intraCycles) {
@@ -184,15 +255,26 @@ public abstract class BlockedJimpleBasedICFG extends JimpleBasedICFG {
 				blockedCallers.get(callee).add(caller);
 			});
 		});
+		invalidateCallEdges();
 	}
 	
+	/**
+	 * Return the callers of `m` in this ICFG. The returned collection
+	 * is immutable and shared, see {@link #computeCallersOf(SootMethod)}.
+	 */
 	@Override
 	public Collection<Unit> getCallersOf(SootMethod m) {
+		return blockedCallersOf.getUnchecked(m);
+	}
+	
+	protected Collection<Unit> computeCallersOf(SootMethod m) {
 		if ((excludeLibrary && m.getDeclaringClass().isLibraryClass())
-				|| reflectionSpecAPIs.contains(m)) {
+				|| reflectionSpecAPIs.contains(m)
+				|| !isRetained(m)) {
 			return Collections.emptySet();
 		} else {
-			Collection<Unit> callers = super.getCallersOf(m);
+			// copy, as the collection cached by super must not be modified
+			Collection<Unit> callers = new ArrayList<>(super.getCallersOf(m));
 			if (blockedCallers.containsKey(m)) {
 				callers.removeAll(blockedCallers.get(m));
 			}
@@ -210,13 +292,43 @@ public abstract class BlockedJimpleBasedICFG extends JimpleBasedICFG {
 		}
 	}
 	
+	/**
+	 * Return the callees of `u` in this ICFG. The returned collection
+	 * is immutable and shared, see {@link #computeCalleesOfCallAt(Unit)}.
+	 */
 	@Override
 	public Collection<SootMethod> getCalleesOfCallAt(Unit u) {
+		return blockedCalleesOfCall.getUnchecked(u);
+	}
+	
+	protected Collection<SootMethod> computeCalleesOfCallAt(Unit u) {
+		Collection<SootMethod> callees = computeUnprunedCalleesOfCallAt(u);
+		if (retainedMethods != null) {
+			callees.removeIf(m -> !retainedMethods.contains(m));
+		}
+		return callees;
+	}
+	
+	/**
+	 * Return the callees of `u` which are passed over as they are not
+	 * retained, see retainMethods().
+	 */
+	public Collection<SootMethod> getPrunedCalleesOfCallAt(Unit u) {
+		if (retainedMethods == null) {
+			return Collections.emptySet();
+		}
+		Collection<SootMethod> callees = computeUnprunedCalleesOfCallAt(u);
+		callees.removeIf(retainedMethods::contains);
+		return callees;
+	}
+	
+	private Collection<SootMethod> computeUnprunedCalleesOfCallAt(Unit u) {
 		
 		if (specifiedUnits.contains(u)) 
 			return Collections.emptySet();
 				
-		Collection<SootMethod> callees = unitToCallees.getUnchecked(u);
+		// copy, as the cached collection is shared by the solver threads
+		Collection<SootMethod> callees = new ArrayList<>(unitToCallees.getUnchecked(u));
 		// we want the resolved callees of invoke/newInstance but not 
 		// the invoke/newInstance() method bodies themselves
 		if(!reflectionSpecAPIs.isEmpty()) {
@@ -257,6 +369,43 @@ public abstract class BlockedJimpleBasedICFG extends JimpleBasedICFG {
 		collection.addAll(set);
 	}
 	
+	/**
+	 * Restrict this ICFG to `methods`, see ICFGPruner: allNodes() and
+	 * allMethods() span only their units, and calls to the other
+	 * methods are passed over as if they were blocked.
+	 */
+	public void retainMethods(Set<SootMethod> methods) {
+		MethodRegistry registry = this.methods;
+		Set<SootMethod> retained = new LinkedHashSet<>();
+		Set<Unit> nodes = new LinkedHashSet<>();
+		for (int m = 0; m < registry.size(); ++m) {
+			SootMethod method = registry.getMethod(m);
+			if (methods.contains(method)) {
+				retained.add(method);
+				for (int i = registry.unitsBegin(m); i < registry.unitsEnd(m); ++i) {
+					nodes.add(numbering.getUnit(registry.getUnitId(i)));
+				}
+			}
+		}
+		retainedMethods = Collections.unmodifiableSet(retained);
+		retainedNodes = Collections.unmodifiableSet(nodes);
+		invalidateCallEdges();
+	}
+	
+	@Override
+	public Set<Unit> allNodes() {
+		return retainedNodes != null ? retainedNodes : super.allNodes();
+	}
+	
+	@Override
+	public Set<SootMethod> allMethods() {
+		return retainedMethods != null ? retainedMethods : super.allMethods();
+	}
+	
+	protected boolean isRetained(SootMethod m) {
+		return retainedMethods == null || retainedMethods.contains(m);
+	}
+	
 	public void addBlockedMethodsByPackagePrefix(String PackagePrefix) {
 		Scene.v().getClasses().forEach(c -> {
 			if (c.getPackageName().startsWith(PackagePrefix)) {
@@ -275,6 +424,7 @@ public abstract class BlockedJimpleBasedICFG extends JimpleBasedICFG {
 	
 	public void addBlockedMethodsByClass(SootClass sootClass) {
 		alwaysBlockedMethods.addAll(sootClass.getMethods());
+		invalidateCallEdges();
 	}
 	
 	public void addBlockedMethodsBySig(String methodName, Type... params) {
@@ -283,6 +433,7 @@ public abstract class BlockedJimpleBasedICFG extends JimpleBasedICFG {
 				alwaysBlockedMethods.add(c.getMethod(methodName, Arrays.asList(params)));
 			} catch (Exception e) {}
 		});
+		invalidateCallEdges();
 	}
 	
 	public static boolean containsCall(Unit unit, SootMethod method) {
@@ -320,6 +471,7 @@ public abstract class BlockedJimpleBasedICFG extends JimpleBasedICFG {
 						clinitCallers.put(clinit, new HashSet<>());
 					}
 					clinitCallers.get(clinit).add(u);
+					invalidateCallEdges();
 					return;
 				} else {
 					getSuccsOfOwn(u).forEach(succ -> {
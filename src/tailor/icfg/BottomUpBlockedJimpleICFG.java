@@ -42,5 +42,15 @@ public class BottomUpBlockedJimpleICFG extends BlockedJimpleBasedICFG {
 		super(specUnits, intraCycles, interCycles);
 	}
 	
+	public BottomUpBlockedJimpleICFG(JimpleBasedICFG base, Set<Unit> specUnits) {
+		super(base, specUnits);
+	}
+	
+	public BottomUpBlockedJimpleICFG(JimpleBasedICFG base, Set<Unit> specUnits,
+			Map<Pair<Unit, Unit>, Set<Unit>> intraCycles,
+			Map<Unit, Set<SootMethod>> interCycles) {
+		super(base, specUnits, intraCycles, interCycles);
+	}
+	
 	public BottomUpBlockedJimpleICFG() {}
 }
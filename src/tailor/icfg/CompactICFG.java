@@ -0,0 +1,393 @@
+/* Tailor - Program Tailoring: Slicing by Sequential Criteria
+ *
+ * Copyright (C) 2016 Yue Li, Tian Tan, Jingling Xue
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package tailor.icfg;
+
+import heros.ThreadSafe;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+import soot.SootMethod;
+import soot.Unit;
+import soot.Value;
+import soot.toolkits.graph.DirectedGraph;
+
+/**
+ * An immutable snapshot of a (blocked) ICFG, in which the edges are
+ * stored in compressed sparse rows: for each unit (by its ID, see
+ * UnitNumbering) or method (by its index in this snapshot), the IDs of
+ * its targets lie in a range of one int array.
+ *
+ * Every query of the solver is answered by array reads, and returns a
+ * list view over the rows created with the snapshot, so the solver
+ * neither allocates nor contends for the caches of the source ICFG.
+ * Queries about the units and methods that are not in the snapshot,
+ * and about the unit graphs, are forwarded to the source ICFG.
+ *
+ * The snapshot must be taken once the source ICFG is final, e.g., for
+ * TopDownBlockedJimpleICFG, after the bottom-up pass.
+ */
+@ThreadSafe
+public class CompactICFG implements BiDiICFG<Unit, SootMethod> {
+
+	private static final byte CALL = 1, EXIT = 2, START = 4, RETURN_SITE = 8;
+
+	private final BiDiICFG<Unit, SootMethod> source;
+	private final UnitNumbering numbering = UnitNumbering.INSTANCE;
+
+	// by unit ID, null for the units which are not nodes
+	private final Unit[] units;
+	private final byte[] flags;
+	private final int[] unitToMethod;
+
+	// by method index
+	private final SootMethod[] methods;
+	private final Map<SootMethod, Integer> methodToIndex = new HashMap<>();
+	private final List<Set<Unit>> callsFromWithin = new ArrayList<>();
+	private final List<Set<Unit>> returnsFromWithin = new ArrayList<>();
+
+	// unit ID -> unit IDs
+	private final Rows<Unit> succs, preds, returnSites, predsOfCall;
+	// unit ID -> method indices
+	private final Rows<SootMethod> callees;
+	// method index -> unit IDs
+	private final Rows<Unit> callers, startPoints, endPoints;
+
+	private final Set<Unit> allNodes;
+	private final Set<SootMethod> allMethods;
+	private final Set<Unit> allNonCallStartNodes, allNonCallEndNodes;
+
+	public CompactICFG(BiDiICFG<Unit, SootMethod> source) {
+		this.source = source;
+		allNodes = Collections.unmodifiableSet(new LinkedHashSet<>(source.allNodes()));
+
+		// number the nodes and the methods
+		int size = 0;
+		for (Unit u : allNodes) {
+			size = Math.max(size, numbering.getId(u) + 1);
+		}
+		units = new Unit[size];
+		flags = new byte[size];
+		List<SootMethod> methodList = new ArrayList<>();
+		source.allMethods().forEach(m -> addMethod(m, methodList));
+		for (Unit u : allNodes) {
+			int id = numbering.getId(u);
+			units[id] = u;
+			addMethod(source.getMethodOf(u), methodList);
+			byte flag = 0;
+			if (source.isCallStmt(u)) {
+				flag |= CALL;
+				source.getCalleesOfCallAt(u).forEach(m -> addMethod(m, methodList));
+			}
+			if (source.isExitStmt(u)) {
+				flag |= EXIT;
+			}
+			if (source.isStartPoint(u)) {
+				flag |= START;
+			}
+			if (source.isReturnSite(u)) {
+				flag |= RETURN_SITE;
+			}
+			flags[id] = flag;
+		}
+		methods = methodList.toArray(new SootMethod[0]);
+		allMethods = Collections.unmodifiableSet(new LinkedHashSet<>(source.allMethods()));
+		unitToMethod = new int[size];
+		for (Unit u : allNodes) {
+			unitToMethod[numbering.getId(u)] = methodToIndex.get(source.getMethodOf(u));
+		}
+
+		// the edges
+		ToIntFunction<Unit> unitId = this::idOf;
+		ToIntFunction<SootMethod> methodIndex = this::indexOf;
+		succs = new Rows<>(units, units, source::getSuccsOf, unitId, null);
+		preds = new Rows<>(units, units, source::getPredsOf, unitId, null);
+		returnSites = new Rows<>(units, units, source::getReturnSitesOfCallAt, unitId, succs);
+		predsOfCall = new Rows<>(units, units, source::getPredsOfCallAt, unitId, preds);
+		callees = new Rows<>(units, methods,
+				u -> isCall(u) ? source.getCalleesOfCallAt(u) : null, methodIndex, null);
+		callers = new Rows<>(methods, units, source::getCallersOf, unitId, null);
+		startPoints = new Rows<>(methods, units, source::getStartPointsOf, unitId, null);
+		endPoints = new Rows<>(methods, units, source::getEndPointsOf, unitId, null);
+		for (SootMethod m : methods) {
+			callsFromWithin.add(Collections.unmodifiableSet(
+					new LinkedHashSet<>(source.getCallsFromWithin(m))));
+			returnsFromWithin.add(Collections.unmodifiableSet(
+					new LinkedHashSet<>(source.getReturnsFromWithin(m))));
+		}
+
+		allNonCallStartNodes = Collections.unmodifiableSet(
+				new LinkedHashSet<>(source.allNonCallStartNodes()));
+		allNonCallEndNodes = Collections.unmodifiableSet(
+				new LinkedHashSet<>(source.allNonCallEndNodes()));
+	}
+
+	private void addMethod(SootMethod m, List<SootMethod> methodList) {
+		if (!methodToIndex.containsKey(m)) {
+			methodToIndex.put(m, methodList.size());
+			methodList.add(m);
+		}
+	}
+
+	public BiDiICFG<Unit, SootMethod> getSource() {
+		return source;
+	}
+
+	/** Return the ID of `u` if it is a node of this ICFG, otherwise -1. */
+	private int idOf(Unit u) {
+		int id = numbering.getIdIfPresent(u);
+		return id >= 0 && id < units.length && units[id] != null ? id : -1;
+	}
+
+	private int indexOf(SootMethod m) {
+		Integer index = methodToIndex.get(m);
+		return index == null ? -1 : index;
+	}
+
+	private boolean isCall(Unit u) {
+		return (flags[numbering.getId(u)] & CALL) != 0;
+	}
+
+	@Override
+	public SootMethod getMethodOf(Unit u) {
+		int id = idOf(u);
+		return id >= 0 ? methods[unitToMethod[id]] : source.getMethodOf(u);
+	}
+
+	@Override
+	public List<Unit> getSuccsOf(Unit u) {
+		int id = idOf(u);
+		return id >= 0 ? succs.get(id) : source.getSuccsOf(u);
+	}
+
+	@Override
+	public List<Unit> getPredsOf(Unit u) {
+		int id = idOf(u);
+		return id >= 0 ? preds.get(id) : source.getPredsOf(u);
+	}
+
+	@Override
+	public Collection<SootMethod> getCalleesOfCallAt(Unit u) {
+		int id = idOf(u);
+		return id >= 0 ? callees.get(id) : source.getCalleesOfCallAt(u);
+	}
+
+	@Override
+	public Collection<Unit> getReturnSitesOfCallAt(Unit u) {
+		int id = idOf(u);
+		return id >= 0 ? returnSites.get(id) : source.getReturnSitesOfCallAt(u);
+	}
+
+	@Override
+	public List<Unit> getPredsOfCallAt(Unit u) {
+		int id = idOf(u);
+		return id >= 0 ? predsOfCall.get(id) : source.getPredsOfCallAt(u);
+	}
+
+	@Override
+	public Collection<Unit> getCallersOf(SootMethod m) {
+		int index = indexOf(m);
+		return index >= 0 ? callers.get(index) : source.getCallersOf(m);
+	}
+
+	@Override
+	public Set<Unit> getCallsFromWithin(SootMethod m) {
+		int index = indexOf(m);
+		return index >= 0 ? callsFromWithin.get(index) : source.getCallsFromWithin(m);
+	}
+
+	@Override
+	public Set<Unit> getReturnsFromWithin(SootMethod m) {
+		int index = indexOf(m);
+		return index >= 0 ? returnsFromWithin.get(index) : source.getReturnsFromWithin(m);
+	}
+
+	@Override
+	public Collection<Unit> getStartPointsOf(SootMethod m) {
+		int index = indexOf(m);
+		return index >= 0 ? startPoints.get(index) : source.getStartPointsOf(m);
+	}
+
+	@Override
+	public Collection<Unit> getEndPointsOf(SootMethod m) {
+		int index = indexOf(m);
+		return index >= 0 ? endPoints.get(index) : source.getEndPointsOf(m);
+	}
+
+	@Override
+	public boolean isCallStmt(Unit u) {
+		int id = idOf(u);
+		return id >= 0 ? (flags[id] & CALL) != 0 : source.isCallStmt(u);
+	}
+
+	@Override
+	public boolean isExitStmt(Unit u) {
+		int id = idOf(u);
+		return id >= 0 ? (flags[id] & EXIT) != 0 : source.isExitStmt(u);
+	}
+
+	@Override
+	public boolean isStartPoint(Unit u) {
+		int id = idOf(u);
+		return id >= 0 ? (flags[id] & START) != 0 : source.isStartPoint(u);
+	}
+
+	@Override
+	public boolean isReturnSite(Unit u) {
+		int id = idOf(u);
+		return id >= 0 ? (flags[id] & RETURN_SITE) != 0 : source.isReturnSite(u);
+	}
+
+	@Override
+	public Set<Unit> allNonCallStartNodes() {
+		return allNonCallStartNodes;
+	}
+
+	@Override
+	public Set<Unit> allNonCallEndNodes() {
+		return allNonCallEndNodes;
+	}
+
+	@Override
+	public Set<Unit> allNodes() {
+		return allNodes;
+	}
+
+	@Override
+	public Set<SootMethod> allMethods() {
+		return allMethods;
+	}
+
+	@Override
+	public boolean isFallThroughSuccessor(Unit u, Unit succ) {
+		return source.isFallThroughSuccessor(u, succ);
+	}
+
+	@Override
+	public boolean isBranchTarget(Unit u, Unit succ) {
+		return source.isBranchTarget(u, succ);
+	}
+
+	@Override
+	public DirectedGraph<Unit> getOrCreateUnitGraph(SootMethod m) {
+		return source.getOrCreateUnitGraph(m);
+	}
+
+	@Override
+	public List<Value> getParameterRefs(SootMethod m) {
+		return source.getParameterRefs(m);
+	}
+
+	/**
+	 * Compressed sparse rows: the targets of the non-empty rows are the
+	 * IDs in consecutive ranges of one int array, each exposed as an
+	 * immutable list view (a Slice) created once per row.
+	 */
+	private static final class Rows<T> {
+
+		private final List<T>[] views;
+
+		/**
+		 * @param rows the keys of the rows, where null keys are empty rows
+		 * @param byId the targets by ID
+		 * @param row the targets of a row, or null for an empty row
+		 * @param idOf the ID of a target, or -1 if it has none
+		 * @param same the rows whose views are shared where they are equal
+		 */
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		<K> Rows(K[] rows, T[] byId,
+				Function<? super K, ? extends Collection<T>> row,
+				ToIntFunction<T> idOf,
+				Rows<T> same) {
+			views = new List[rows.length];
+			List<Collection<T>> indexed = new ArrayList<>(rows.length);
+			int size = 0;
+			for (int i = 0; i < rows.length; ++i) {
+				Collection<T> ts = rows[i] == null ? null : row.apply(rows[i]);
+				if (ts == null || ts.isEmpty()) {
+					views[i] = Collections.emptyList();
+				} else if (same != null
+						&& same.views[i].equals(ts instanceof List ? ts : new ArrayList<>(ts))) {
+					views[i] = same.views[i];
+				} else if (ts.stream().anyMatch(t -> idOf.applyAsInt(t) < 0)) {
+					// targets out of this ICFG, which are not expected
+					views[i] = Collections.unmodifiableList(new ArrayList<>(ts));
+				} else {
+					indexed.add(ts);
+					size += ts.size();
+					continue;
+				}
+				indexed.add(null);
+			}
+			int[] targets = new int[size];
+			int pos = 0;
+			for (int i = 0; i < rows.length; ++i) {
+				Collection<T> ts = indexed.get(i);
+				if (ts != null) {
+					int from = pos;
+					for (T t : ts) {
+						targets[pos++] = idOf.applyAsInt(t);
+					}
+					views[i] = new Slice<>(byId, targets, from, pos - from);
+				}
+			}
+		}
+
+		List<T> get(int i) {
+			return views[i];
+		}
+	}
+
+	private static final class Slice<T> extends AbstractList<T> implements RandomAccess {
+
+		private final T[] byId;
+		private final int[] targets;
+		private final int from, size;
+
+		Slice(T[] byId, int[] targets, int from, int size) {
+			this.byId = byId;
+			this.targets = targets;
+			this.from = from;
+			this.size = size;
+		}
+
+		@Override
+		public T get(int index) {
+			if (index < 0 || index >= size) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+			}
+			return byId[targets[from + index]];
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+	}
+}
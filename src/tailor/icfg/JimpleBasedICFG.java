@@ -76,8 +76,14 @@ public class JimpleBasedICFG extends AbstractJimpleBasedICFG {
 	protected final CallGraph cg;
 	
 	@SynchronizedBy("by use of synchronized LoadingCache class")
-	protected final LoadingCache<Unit,Collection<SootMethod>> unitToCallees =
-			IDESolver.DEFAULT_CACHE_BUILDER.build( new CacheLoader<Unit,Collection<SootMethod>>() {
+	protected final LoadingCache<Unit,Collection<SootMethod>> unitToCallees;
+
+	@SynchronizedBy("by use of synchronized LoadingCache class")
+	protected final LoadingCache<SootMethod,Collection<Unit>> methodToCallers;
+
+	public JimpleBasedICFG() {
+		cg = Scene.v().getCallGraph();
+		unitToCallees = IDESolver.DEFAULT_CACHE_BUILDER.build( new CacheLoader<Unit,Collection<SootMethod>>() {
 				@Override
 				public Collection<SootMethod> load(Unit u) throws Exception {
 					ArrayList<SootMethod> res = null;
@@ -103,10 +109,7 @@ public class JimpleBasedICFG extends AbstractJimpleBasedICFG {
 						return Collections.emptySet();
 				}
 			});
-
-	@SynchronizedBy("by use of synchronized LoadingCache class")
-	protected final LoadingCache<SootMethod,Collection<Unit>> methodToCallers =
-			IDESolver.DEFAULT_CACHE_BUILDER.build( new CacheLoader<SootMethod,Collection<Unit>>() {
+		methodToCallers = IDESolver.DEFAULT_CACHE_BUILDER.build( new CacheLoader<SootMethod,Collection<Unit>>() {
 				@Override
 				public Collection<Unit> load(SootMethod m) throws Exception {
 					ArrayList<Unit> res = new ArrayList<Unit>();
@@ -120,11 +123,21 @@ public class JimpleBasedICFG extends AbstractJimpleBasedICFG {
 					return res;
 				}
 			});
-
-	public JimpleBasedICFG() {
-		cg = Scene.v().getCallGraph();		
 		initializeUnitToOwner();
 	}
+	
+	/**
+	 * Share the call graph, the unit owners and the caches of `shared`
+	 * (see {@link AbstractJimpleBasedICFG#AbstractJimpleBasedICFG(AbstractJimpleBasedICFG)}),
+	 * so that ICFGs built for different SCs need not recompute them.
+	 * Subclasses must not modify the shared callee and caller collections.
+	 */
+	public JimpleBasedICFG(JimpleBasedICFG shared) {
+		super(shared);
+		cg = shared.cg;
+		unitToCallees = shared.unitToCallees;
+		methodToCallers = shared.methodToCallers;
+	}
 
 	protected void initializeUnitToOwner() {
 		for(Iterator<MethodOrMethodContext> iter = Scene.v().getReachableMethods().listener(); iter.hasNext(); ) {
@@ -140,6 +153,8 @@ public class JimpleBasedICFG extends AbstractJimpleBasedICFG {
 			for (Unit unit : units) {
 				unitToOwner.put(unit, b);
 			}
+			// numbers the units as well
+			methods.register(m);
 		}
 	}
 
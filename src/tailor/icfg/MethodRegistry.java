@@ -0,0 +1,154 @@
+/* Tailor - Program Tailoring: Slicing by Sequential Criteria
+ *
+ * Copyright (C) 2016 Yue Li, Tian Tan, Jingling Xue
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package tailor.icfg;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import soot.Body;
+import soot.SootMethod;
+import soot.Unit;
+
+/**
+ * The methods of an ICFG, numbered densely in the order they are
+ * registered, together with the (unit) IDs of their units, which are
+ * stored contiguously per method.
+ *
+ * Like the unit-to-owner map it is filled alongside, the registry is
+ * written by a single thread and read afterwards.
+ */
+public class MethodRegistry {
+
+	private final List<SootMethod> methods = new ArrayList<>();
+	private final Map<SootMethod, Integer> methodToId = new HashMap<>();
+	private final Set<SootMethod> methodSet = new MethodSet();
+	// the units of method i are unitIds[unitOffsets[i] .. unitOffsets[i + 1])
+	private int[] unitOffsets = new int[1 << 10];
+	private int[] unitIds = new int[1 << 14];
+	private int numUnits = 0;
+
+	/**
+	 * Register `m` and number its units, unless `m` has no active body
+	 * or has been registered. Return the ID of `m`, or -1 if `m` has
+	 * no active body.
+	 */
+	public int register(SootMethod m) {
+		Integer id = methodToId.get(m);
+		if (id != null) {
+			return id;
+		}
+		if (!m.hasActiveBody()) {
+			return -1;
+		}
+		Body body = m.getActiveBody();
+		int size = body.getUnits().size();
+		if (numUnits + size > unitIds.length) {
+			unitIds = Arrays.copyOf(unitIds,
+					Math.max(2 * unitIds.length, numUnits + size));
+		}
+		for (Unit u : body.getUnits()) {
+			unitIds[numUnits++] = UnitNumbering.INSTANCE.getId(u);
+		}
+		id = methods.size();
+		if (id + 1 == unitOffsets.length) {
+			unitOffsets = Arrays.copyOf(unitOffsets, 2 * unitOffsets.length);
+		}
+		unitOffsets[id + 1] = numUnits;
+		methods.add(m);
+		methodToId.put(m, id);
+		return id;
+	}
+
+	/**
+	 * Return the ID of `m`, or -1 if `m` has not been registered.
+	 */
+	public int getId(SootMethod m) {
+		Integer id = methodToId.get(m);
+		return id == null ? -1 : id;
+	}
+
+	public SootMethod getMethod(int id) {
+		return methods.get(id);
+	}
+
+	/**
+	 * IDs of registered methods range over [0, size()).
+	 */
+	public int size() {
+		return methods.size();
+	}
+
+	/**
+	 * Return an unmodifiable view of the registered methods, in the
+	 * order of their IDs.
+	 */
+	public Set<SootMethod> asSet() {
+		return methodSet;
+	}
+
+	/**
+	 * The unit IDs of method `id` are getUnitId(i) for
+	 * unitsBegin(id) <= i < unitsEnd(id), in the order of its body.
+	 */
+	public int unitsBegin(int id) {
+		return unitOffsets[id];
+	}
+
+	public int unitsEnd(int id) {
+		return unitOffsets[id + 1];
+	}
+
+	public int getUnitId(int index) {
+		return unitIds[index];
+	}
+
+	/**
+	 * The number of units of all registered methods.
+	 */
+	public int numUnits() {
+		return numUnits;
+	}
+
+	private class MethodSet extends AbstractSet<SootMethod> {
+
+		private final List<SootMethod> view = Collections.unmodifiableList(methods);
+
+		@Override
+		public Iterator<SootMethod> iterator() {
+			return view.iterator();
+		}
+
+		@Override
+		public int size() {
+			return methods.size();
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return methodToId.containsKey(o);
+		}
+	}
+}
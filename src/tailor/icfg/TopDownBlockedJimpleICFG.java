@@ -20,6 +20,8 @@ package tailor.icfg;
 
 import heros.solver.Pair;
 
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -27,35 +29,122 @@ import java.util.stream.Collectors;
 
 import soot.SootMethod;
 import soot.Unit;
-import tailor.tag.BottomUpReachableTag;
+import tailor.icfg.util.ConcurrentBitSet;
 
 /**
  * For IFDSTopDownTailor analysis. i.e., 
  * In the top down process, avoid traversing the nodes 
  * in ICFG which have not been traversed by IFDSBottomUpTailor analysis.
  * 
+ * The traversed nodes are given by their IDs (see UnitNumbering) in a
+ * bit set owned by the analysis, which keeps the analyses of different
+ * SCs apart.
+ * 
+ * Once the bottom-up pass has finished, materializeBottomUpReachable()
+ * fixes the traversed subgraph, i.e., the successors of its units and
+ * its methods, so that the top-down pass need not filter per query.
  */
 public class TopDownBlockedJimpleICFG extends BlockedJimpleBasedICFG {
 
-	public TopDownBlockedJimpleICFG(Set<Unit> specUnits) {
+	private final ConcurrentBitSet bottomUpReachable;
+	
+	// successors by unit ID, and methods, of the traversed subgraph
+	private List<Unit>[] reachableSuccs;
+	private Set<SootMethod> reachableMethods;
+
+	public TopDownBlockedJimpleICFG(Set<Unit> specUnits,
+			ConcurrentBitSet bottomUpReachable) {
 		super(specUnits);
+		this.bottomUpReachable = bottomUpReachable;
 	}
 	
 	public TopDownBlockedJimpleICFG(Set<Unit> specUnits,
 			Map<Pair<Unit, Unit>, Set<Unit>> intraCycles,
-			Map<Unit, Set<SootMethod>> interCycles) {
+			Map<Unit, Set<SootMethod>> interCycles,
+			ConcurrentBitSet bottomUpReachable) {
 		super(specUnits, intraCycles, interCycles);
+		this.bottomUpReachable = bottomUpReachable;
+	}
+	
+	public TopDownBlockedJimpleICFG(JimpleBasedICFG base, Set<Unit> specUnits,
+			ConcurrentBitSet bottomUpReachable) {
+		super(base, specUnits);
+		this.bottomUpReachable = bottomUpReachable;
+	}
+	
+	public TopDownBlockedJimpleICFG(JimpleBasedICFG base, Set<Unit> specUnits,
+			Map<Pair<Unit, Unit>, Set<Unit>> intraCycles,
+			Map<Unit, Set<SootMethod>> interCycles,
+			ConcurrentBitSet bottomUpReachable) {
+		super(base, specUnits, intraCycles, interCycles);
+		this.bottomUpReachable = bottomUpReachable;
 	}
 	
-	public TopDownBlockedJimpleICFG() {
+	public TopDownBlockedJimpleICFG(ConcurrentBitSet bottomUpReachable) {
 		super();
+		this.bottomUpReachable = bottomUpReachable;
+	}
+	
+	private boolean isBottomUpReachable(Unit u) {
+		return bottomUpReachable.get(getUnitId(u));
+	}
+	
+	/**
+	 * Fix the subgraph traversed by the bottom-up pass, which must have
+	 * finished. Afterwards, getSuccsOf() returns the precomputed
+	 * successors, and allMethods() returns only the methods containing
+	 * traversed units.
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public void materializeBottomUpReachable() {
+		Set<SootMethod> reached = new LinkedHashSet<>();
+		List<Unit>[] succs = new List[numbering.size()];
+		for (int m = 0; m < methods.size(); ++m) {
+			int begin = methods.unitsBegin(m), end = methods.unitsEnd(m);
+			boolean isReached = false;
+			for (int i = begin; i < end && !isReached; ++i) {
+				isReached = isBottomUpReachable(numbering.getUnit(methods.getUnitId(i)));
+			}
+			if (isReached) {
+				reached.add(methods.getMethod(m));
+				for (int i = begin; i < end; ++i) {
+					int id = methods.getUnitId(i);
+					List<Unit> res = filterSuccsOf(numbering.getUnit(id));
+					succs[id] = res.isEmpty()
+							? Collections.emptyList()
+							: Collections.unmodifiableList(res);
+				}
+			}
+		}
+		reachableMethods = Collections.unmodifiableSet(reached);
+		reachableSuccs = succs;
+	}
+	
+	@Override
+	public Set<SootMethod> allMethods() {
+		if (reachableMethods != null) {
+			return reachableMethods;
+		}
+		return super.allMethods();
 	}
 	
 	@Override
 	public List<Unit> getSuccsOf(Unit u) {
+		if (reachableSuccs != null) {
+			// units out of the traversed methods have no traversed successors
+			int id = numbering.getIdIfPresent(u);
+			List<Unit> succs = id >= 0 && id < reachableSuccs.length
+					? reachableSuccs[id]
+					: null;
+			return succs == null ? Collections.emptyList() : succs;
+		}
+		return filterSuccsOf(u);
+	}
+	
+	private List<Unit> filterSuccsOf(Unit u) {
 		return super.getSuccsOf(u)
 				.stream()
-				.filter(unit -> unit.hasTag(BottomUpReachableTag.NAME))
+				.filter(this::isBottomUpReachable)
 				.collect(Collectors.toList());
 	}
 }
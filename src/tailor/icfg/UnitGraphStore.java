@@ -0,0 +1,81 @@
+/* Tailor - Program Tailoring: Slicing by Sequential Criteria
+ *
+ * Copyright (C) 2016 Yue Li, Tian Tan, Jingling Xue
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package tailor.icfg;
+
+import soot.Body;
+import soot.Unit;
+import soot.toolkits.exceptions.UnitThrowAnalysis;
+import soot.toolkits.graph.DirectedGraph;
+import soot.toolkits.graph.ExceptionalUnitGraph;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+
+/**
+ * The unit graphs of the method bodies, shared by all ICFGs (see
+ * {@link AbstractJimpleBasedICFG#getOrCreateUnitGraph(Body)}), so that
+ * each graph is built once per process rather than once per ICFG.
+ *
+ * The graphs are softly referenced, hence they are dropped under memory
+ * pressure and rebuilt (over the same units) on demand.
+ */
+public enum UnitGraphStore {
+	// Enable singleton pattern
+	INSTANCE;
+
+	private final LoadingCache<Body, DirectedGraph<Unit>> bodyToUnitGraph =
+			CacheBuilder.newBuilder()
+				.concurrencyLevel(Runtime.getRuntime().availableProcessors())
+				.softValues()
+				.recordStats()
+				.build(new CacheLoader<Body, DirectedGraph<Unit>>() {
+					@Override
+					public DirectedGraph<Unit> load(Body body) throws Exception {
+						return new ExceptionalUnitGraph(body, UnitThrowAnalysis.v(), true);
+					}
+				});
+
+	public DirectedGraph<Unit> getUnitGraph(Body body) {
+		return bodyToUnitGraph.getUnchecked(body);
+	}
+
+	/** Hit and miss counts, etc., of the store */
+	public CacheStats stats() {
+		return bodyToUnitGraph.stats();
+	}
+
+	public long size() {
+		return bodyToUnitGraph.size();
+	}
+
+	public void clear() {
+		bodyToUnitGraph.invalidateAll();
+	}
+
+	@Override
+	public String toString() {
+		CacheStats stats = stats();
+		return "UnitGraphStore: " + size() + " graphs, "
+				+ stats.hitCount() + " hits, "
+				+ stats.missCount() + " misses, "
+				+ stats.evictionCount() + " evictions";
+	}
+}
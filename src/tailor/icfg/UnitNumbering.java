@@ -0,0 +1,85 @@
+/* Tailor - Program Tailoring: Slicing by Sequential Criteria
+ *
+ * Copyright (C) 2016 Yue Li, Tian Tan, Jingling Xue
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package tailor.icfg;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import soot.Unit;
+
+/**
+ * Gives every unit a dense integer ID. Each ICFG numbers its nodes
+ * when it is built; the IDs are shared by all ICFGs, so that facts and
+ * tables indexed by ID are valid for both the top-down and the
+ * bottom-up ICFG.
+ */
+public enum UnitNumbering {
+	// Enable singleton pattern
+	INSTANCE;
+
+	private final ConcurrentMap<Unit, Integer> unitToId = new ConcurrentHashMap<>();
+	private volatile Unit[] idToUnit = new Unit[1 << 12];
+	private int size = 0;
+
+	/**
+	 * Return the ID of `u`, numbering it first if necessary.
+	 */
+	public int getId(Unit u) {
+		Integer id = unitToId.get(u);
+		if (id == null) {
+			return register(u);
+		}
+		return id;
+	}
+
+	/**
+	 * Return the ID of `u`, or -1 if `u` has not been numbered.
+	 */
+	public int getIdIfPresent(Unit u) {
+		Integer id = unitToId.get(u);
+		return id == null ? -1 : id;
+	}
+
+	public Unit getUnit(int id) {
+		return idToUnit[id];
+	}
+
+	/**
+	 * IDs of numbered units range over [0, size()).
+	 */
+	public synchronized int size() {
+		return size;
+	}
+
+	private synchronized int register(Unit u) {
+		Integer id = unitToId.get(u);
+		if (id == null) {
+			Unit[] units = idToUnit;
+			if (size == units.length) {
+				units = Arrays.copyOf(units, 2 * units.length);
+			}
+			units[size] = u;
+			idToUnit = units;
+			id = size++;
+			unitToId.put(u, id);
+		}
+		return id;
+	}
+}
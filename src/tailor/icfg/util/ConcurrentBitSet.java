@@ -0,0 +1,141 @@
+/* Tailor - Program Tailoring: Slicing by Sequential Criteria
+ *
+ * Copyright (C) 2016 Yue Li, Tian Tan, Jingling Xue
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package tailor.icfg.util;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free bit set for marking dense IDs (e.g., of units) from
+ * the solver threads. Setting and reading a bit never block; only
+ * growing the set takes a lock.
+ *
+ * The words are stored in fixed-size chunks which are never copied:
+ * growing the set only appends chunks to a new directory, so a bit
+ * set in a chunk is seen through every directory holding the chunk.
+ */
+public class ConcurrentBitSet {
+
+	// words per chunk
+	private static final int CHUNK_SHIFT = 10;
+	private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+	private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+	private volatile AtomicLongArray[] chunks;
+
+	public ConcurrentBitSet() {
+		this(64);
+	}
+
+	public ConcurrentBitSet(int nbits) {
+		int numChunks = chunkIndex(wordIndex(Math.max(nbits, 1) - 1)) + 1;
+		AtomicLongArray[] cs = new AtomicLongArray[numChunks];
+		for (int i = 0; i < numChunks; ++i) {
+			cs[i] = new AtomicLongArray(CHUNK_SIZE);
+		}
+		chunks = cs;
+	}
+
+	/**
+	 * Set the bit at `index`.
+	 * @return true iff the bit was not set before
+	 */
+	public boolean set(int index) {
+		int w = wordIndex(index);
+		int c = chunkIndex(w);
+		AtomicLongArray[] cs = chunks;
+		if (c >= cs.length) {
+			cs = grow(c);
+		}
+		AtomicLongArray chunk = cs[c];
+		int i = w & CHUNK_MASK;
+		long mask = 1L << index;
+		long old = chunk.get(i);
+		while ((old & mask) == 0) {
+			if (chunk.compareAndSet(i, old, old | mask)) {
+				return true;
+			}
+			old = chunk.get(i);
+		}
+		return false;
+	}
+
+	public boolean get(int index) {
+		if (index < 0) {
+			return false;
+		}
+		int w = wordIndex(index);
+		int c = chunkIndex(w);
+		AtomicLongArray[] cs = chunks;
+		return c < cs.length && (cs[c].get(w & CHUNK_MASK) & (1L << index)) != 0;
+	}
+
+	/**
+	 * Return the index of the first set bit at or after `from`, or -1.
+	 */
+	public int nextSetBit(int from) {
+		AtomicLongArray[] cs = chunks;
+		int numWords = cs.length << CHUNK_SHIFT;
+		int w = wordIndex(from);
+		if (w >= numWords) {
+			return -1;
+		}
+		long word = cs[chunkIndex(w)].get(w & CHUNK_MASK) & (-1L << from);
+		while (true) {
+			if (word != 0) {
+				return w * Long.SIZE + Long.numberOfTrailingZeros(word);
+			}
+			if (++w == numWords) {
+				return -1;
+			}
+			word = cs[chunkIndex(w)].get(w & CHUNK_MASK);
+		}
+	}
+
+	public int cardinality() {
+		int count = 0;
+		for (AtomicLongArray chunk : chunks) {
+			for (int i = 0; i < CHUNK_SIZE; ++i) {
+				count += Long.bitCount(chunk.get(i));
+			}
+		}
+		return count;
+	}
+
+	private synchronized AtomicLongArray[] grow(int c) {
+		AtomicLongArray[] cs = chunks;
+		if (c >= cs.length) {
+			int oldLength = cs.length;
+			cs = Arrays.copyOf(cs, Math.max(2 * oldLength, c + 1));
+			for (int i = oldLength; i < cs.length; ++i) {
+				cs[i] = new AtomicLongArray(CHUNK_SIZE);
+			}
+			chunks = cs;
+		}
+		return cs;
+	}
+
+	private static int wordIndex(int index) {
+		return index >> 6;
+	}
+
+	private static int chunkIndex(int wordIndex) {
+		return wordIndex >> CHUNK_SHIFT;
+	}
+}
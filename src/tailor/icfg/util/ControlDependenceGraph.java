@@ -0,0 +1,98 @@
+/* Tailor - Program Tailoring: Slicing by Sequential Criteria
+ *
+ * Copyright (C) 2016 Yue Li, Tian Tan, Jingling Xue
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package tailor.icfg.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import soot.toolkits.graph.DirectedGraph;
+
+/**
+ * The control dependences of a graph, computed from its post-dominator
+ * tree (Ferrante et al.): for each edge a -> b where b does not
+ * post-dominate a, the nodes on the tree path from b up to (but
+ * excluding) the immediate post-dominator of a are control dependent
+ * on a. The time is linear in the number of edges plus the number of
+ * dependences.
+ *
+ * A node which cannot reach a tail (e.g., in an infinite loop) has no
+ * post-dominator, so it only gets the dependences of the edges
+ * entering it.
+ */
+public class ControlDependenceGraph<N> {
+
+	private final DirectedGraph<N> graph;
+
+	// node -> the nodes it is control dependent on
+	private final Map<N, List<N>> dependences = new HashMap<>();
+
+	public ControlDependenceGraph(DirectedGraph<N> graph,
+			DominatorTreeFinder<N> postDoms) {
+		this.graph = graph;
+		for (N a : graph) {
+			List<N> succs = graph.getSuccsOf(a);
+			if (succs.size() < 2) {
+				continue;
+			}
+			N ipdom = postDoms.getImmediateDominator(a);
+			for (N b : succs) {
+				if (postDoms.isStrictlyDominatedBy(a, b)) {
+					continue;
+				}
+				for (N n = b; n != null && n != ipdom; n = postDoms.getImmediateDominator(n)) {
+					if (!addDependence(n, a)) {
+						// the rest of the path has been visited from another
+						// successor of `a`
+						break;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Record that `n` is control dependent on `a`. Return false if it
+	 * has been recorded.
+	 */
+	private boolean addDependence(N n, N a) {
+		List<N> deps = dependences.computeIfAbsent(n, k -> new ArrayList<>(2));
+		// the dependences on `a` are added in a row
+		if (!deps.isEmpty() && deps.get(deps.size() - 1) == a) {
+			return false;
+		}
+		deps.add(a);
+		return true;
+	}
+
+	public DirectedGraph<N> getGraph() {
+		return graph;
+	}
+
+	/**
+	 * Return the (branch) nodes which `n` is control dependent on.
+	 */
+	public List<N> getDependencesOf(N n) {
+		List<N> deps = dependences.get(n);
+		return deps == null ? Collections.emptyList()
+				: Collections.unmodifiableList(deps);
+	}
+}
@@ -0,0 +1,337 @@
+/* Tailor - Program Tailoring: Slicing by Sequential Criteria
+ *
+ * Copyright (C) 2016 Yue Li, Tian Tan, Jingling Xue
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package tailor.icfg.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import soot.toolkits.graph.DirectedGraph;
+import soot.toolkits.graph.DominatorsFinder;
+
+/**
+ * The (post-)dominator tree of a graph, built by the Lengauer-Tarjan
+ * algorithm (with path compression) from a virtual root preceding all
+ * heads (tails), and numbered by a preorder traversal, so that `d`
+ * dominates `n` iff the preorder index of `n` lies in the interval of
+ * the subtree of `d`.
+ *
+ * For the nodes not reachable from the heads (e.g., the nodes of an
+ * infinite loop for post-dominators), the answers are those of
+ * MHGDominatorsFinder: such a node is dominated by all nodes.
+ */
+public class DominatorTreeFinder<N> implements DominatorsFinder<N> {
+
+	private final DirectedGraph<N> graph;
+
+	private final List<N> nodes = new ArrayList<>();
+	private final Map<N, Integer> nodeToIndex = new HashMap<>();
+	// by node index, -1 for the virtual root and the unreachable nodes
+	private final int[] idom;
+	// by node index, -1 for the unreachable nodes; the nodes dominated by
+	// node i have preorder indices in [preorder[i], preorder[i] + subtreeSize[i])
+	private final int[] preorder;
+	private final int[] subtreeSize;
+
+	public static <N> DominatorTreeFinder<N> dominators(DirectedGraph<N> graph) {
+		return new DominatorTreeFinder<>(graph, false);
+	}
+
+	public static <N> DominatorTreeFinder<N> postDominators(DirectedGraph<N> graph) {
+		return new DominatorTreeFinder<>(graph, true);
+	}
+
+	protected DominatorTreeFinder(DirectedGraph<N> graph, boolean post) {
+		this.graph = graph;
+		graph.forEach(n -> {
+			nodeToIndex.put(n, nodes.size());
+			nodes.add(n);
+		});
+		int n = nodes.size();
+		int root = n;
+		// edges of the (inverted, for post) graph with the virtual root
+		int[][] succs = new int[n + 1][];
+		int[][] preds = new int[n + 1][];
+		List<N> heads = post ? graph.getTails() : graph.getHeads();
+		int[] predCount = new int[n + 1];
+		for (int i = 0; i < n; ++i) {
+			succs[i] = indicesOf(post ? graph.getPredsOf(nodes.get(i))
+					: graph.getSuccsOf(nodes.get(i)));
+			for (int s : succs[i]) {
+				++predCount[s];
+			}
+		}
+		succs[root] = indicesOf(heads);
+		for (int s : succs[root]) {
+			++predCount[s];
+		}
+		for (int i = 0; i <= n; ++i) {
+			preds[i] = new int[predCount[i]];
+		}
+		Arrays.fill(predCount, 0);
+		for (int i = 0; i <= n; ++i) {
+			for (int s : succs[i]) {
+				preds[s][predCount[s]++] = i;
+			}
+		}
+
+		int[] idomWithRoot = computeIdoms(succs, preds, root);
+		idom = Arrays.copyOf(idomWithRoot, n);
+		for (int i = 0; i < n; ++i) {
+			if (idom[i] == root) {
+				idom[i] = -1;
+			}
+		}
+
+		// number the dominator tree in preorder
+		int[] childCount = new int[n + 1];
+		for (int i = 0; i < n; ++i) {
+			if (idomWithRoot[i] >= 0) {
+				++childCount[idomWithRoot[i]];
+			}
+		}
+		int[][] children = new int[n + 1][];
+		for (int i = 0; i <= n; ++i) {
+			children[i] = new int[childCount[i]];
+		}
+		Arrays.fill(childCount, 0);
+		for (int i = 0; i < n; ++i) {
+			int d = idomWithRoot[i];
+			if (d >= 0) {
+				children[d][childCount[d]++] = i;
+			}
+		}
+		preorder = new int[n + 1];
+		subtreeSize = new int[n + 1];
+		Arrays.fill(preorder, -1);
+		int[] stack = new int[n + 1];
+		int[] childPos = new int[n + 1];
+		int sp = 0, counter = 0;
+		stack[sp++] = root;
+		preorder[root] = counter++;
+		while (sp > 0) {
+			int v = stack[sp - 1];
+			if (childPos[v] < children[v].length) {
+				int c = children[v][childPos[v]++];
+				preorder[c] = counter++;
+				stack[sp++] = c;
+			} else {
+				subtreeSize[v] = counter - preorder[v];
+				--sp;
+			}
+		}
+	}
+
+	private int[] indicesOf(Collection<N> ns) {
+		int[] res = new int[ns.size()];
+		int i = 0;
+		for (N n : ns) {
+			Integer index = nodeToIndex.get(n);
+			if (index != null) {
+				res[i++] = index;
+			}
+		}
+		return i == res.length ? res : Arrays.copyOf(res, i);
+	}
+
+	/**
+	 * Lengauer-Tarjan, see Appel, Modern Compiler Implementation,
+	 * Section 19.2. Return the immediate dominators, -1 for `root` and
+	 * the unreachable nodes.
+	 */
+	private static int[] computeIdoms(int[][] succs, int[][] preds, int root) {
+		int size = succs.length;
+		int[] dfnum = new int[size];
+		int[] vertex = new int[size];
+		int[] parent = new int[size];
+		int[] semi = new int[size];
+		int[] ancestor = new int[size];
+		int[] best = new int[size];
+		int[] idom = new int[size];
+		int[] samedom = new int[size];
+		int[] bucketHead = new int[size];
+		int[] bucketNext = new int[size];
+		Arrays.fill(dfnum, -1);
+		Arrays.fill(ancestor, -1);
+		Arrays.fill(idom, -1);
+		Arrays.fill(samedom, -1);
+		Arrays.fill(bucketHead, -1);
+
+		// depth-first numbering
+		int count = 0;
+		int[] stack = new int[size];
+		int[] succPos = new int[size];
+		int sp = 0;
+		dfnum[root] = count;
+		vertex[count++] = root;
+		parent[root] = -1;
+		stack[sp++] = root;
+		while (sp > 0) {
+			int v = stack[sp - 1];
+			if (succPos[v] < succs[v].length) {
+				int w = succs[v][succPos[v]++];
+				if (dfnum[w] < 0) {
+					dfnum[w] = count;
+					vertex[count++] = w;
+					parent[w] = v;
+					stack[sp++] = w;
+				}
+			} else {
+				--sp;
+			}
+		}
+
+		int[] path = new int[size];
+		for (int i = count - 1; i > 0; --i) {
+			int w = vertex[i];
+			int p = parent[w];
+			int s = p;
+			for (int v : preds[w]) {
+				if (dfnum[v] < 0) {
+					continue; // unreachable
+				}
+				int s1 = dfnum[v] <= dfnum[w]
+						? v
+						: semi[ancestorWithLowestSemi(v, ancestor, best, semi, dfnum, path)];
+				if (dfnum[s1] < dfnum[s]) {
+					s = s1;
+				}
+			}
+			semi[w] = s;
+			bucketNext[w] = bucketHead[s];
+			bucketHead[s] = w;
+			// link
+			ancestor[w] = p;
+			best[w] = w;
+			for (int v = bucketHead[p]; v >= 0; v = bucketNext[v]) {
+				int y = ancestorWithLowestSemi(v, ancestor, best, semi, dfnum, path);
+				if (semi[y] == semi[v]) {
+					idom[v] = p;
+				} else {
+					samedom[v] = y;
+				}
+			}
+			bucketHead[p] = -1;
+		}
+		for (int i = 1; i < count; ++i) {
+			int w = vertex[i];
+			if (samedom[w] >= 0) {
+				idom[w] = idom[samedom[w]];
+			}
+		}
+		return idom;
+	}
+
+	private static int ancestorWithLowestSemi(int v, int[] ancestor, int[] best,
+			int[] semi, int[] dfnum, int[] path) {
+		if (ancestor[v] < 0) {
+			return best[v];
+		}
+		// compress the path from `v`, top-down
+		int len = 0;
+		for (int u = v; ancestor[ancestor[u]] >= 0; u = ancestor[u]) {
+			path[len++] = u;
+		}
+		for (int k = len - 1; k >= 0; --k) {
+			int u = path[k];
+			int a = ancestor[u];
+			int b = best[a];
+			ancestor[u] = ancestor[a];
+			if (dfnum[semi[b]] < dfnum[semi[best[u]]]) {
+				best[u] = b;
+			}
+		}
+		return best[v];
+	}
+
+	private int indexOf(N n) {
+		Integer index = nodeToIndex.get(n);
+		if (index == null) {
+			throw new IllegalArgumentException("Node " + n + " is not in the graph");
+		}
+		return index;
+	}
+
+	private boolean isReachable(int i) {
+		return preorder[i] >= 0;
+	}
+
+	/**
+	 * Return whether `dominator` dominates `node`, in constant time.
+	 */
+	@Override
+	public boolean isDominatedBy(N node, N dominator) {
+		int n = indexOf(node), d = indexOf(dominator);
+		if (!isReachable(n)) {
+			return true;
+		}
+		return isReachable(d)
+				&& preorder[d] <= preorder[n]
+				&& preorder[n] < preorder[d] + subtreeSize[d];
+	}
+
+	/**
+	 * Return whether `dominator` dominates `node`, and is not `node`.
+	 */
+	public boolean isStrictlyDominatedBy(N node, N dominator) {
+		return node != dominator && isDominatedBy(node, dominator);
+	}
+
+	@Override
+	public boolean isDominatedByAll(N node, Collection<N> dominators) {
+		for (N d : dominators) {
+			if (!isDominatedBy(node, d)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Return the dominators of `node`, from `node` up to the root of
+	 * the tree.
+	 */
+	@Override
+	public List<N> getDominators(N node) {
+		int n = indexOf(node);
+		if (!isReachable(n)) {
+			return Collections.unmodifiableList(nodes);
+		}
+		List<N> res = new ArrayList<>();
+		for (int d = n; d >= 0; d = idom[d]) {
+			res.add(nodes.get(d));
+		}
+		return res;
+	}
+
+	@Override
+	public N getImmediateDominator(N node) {
+		int d = idom[indexOf(node)];
+		return d >= 0 ? nodes.get(d) : null;
+	}
+
+	@Override
+	public DirectedGraph<N> getGraph() {
+		return graph;
+	}
+}
@@ -0,0 +1,68 @@
+/* Tailor - Program Tailoring: Slicing by Sequential Criteria
+ *
+ * Copyright (C) 2016 Yue Li, Tian Tan, Jingling Xue
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package tailor.icfg.util;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+import soot.SootMethod;
+import soot.Unit;
+import tailor.icfg.BiDiICFG;
+
+/**
+ * Find the methods which lie between the head (i.e., main) and the
+ * methods containing the target units in the call graph of an ICFG,
+ * i.e., which are both reachable from the head and can reach a
+ * target. Calls to the other methods cannot reach any target, and
+ * may be passed over by the analyses, as long as the units of such
+ * methods are added back under their calls in the results.
+ */
+public class ICFGPruner {
+
+	public static Set<SootMethod> findRelevantMethods(BiDiICFG<Unit, SootMethod> icfg,
+			SootMethod head,
+			Collection<Unit> targets) {
+		ICFGCallGraph cg = new ICFGCallGraph(icfg, head);
+		Set<SootMethod> forward = reach(cg.getHeads(), cg::getSuccsOf);
+		Set<SootMethod> targetMethods = new LinkedHashSet<>();
+		targets.forEach(u -> targetMethods.add(icfg.getMethodOf(u)));
+		Set<SootMethod> backward = reach(targetMethods, cg::getPredsOf);
+		forward.retainAll(backward);
+		return forward;
+	}
+
+	private static Set<SootMethod> reach(Collection<SootMethod> roots,
+			Function<SootMethod, List<SootMethod>> next) {
+		Set<SootMethod> visited = new LinkedHashSet<>(roots);
+		Deque<SootMethod> worklist = new ArrayDeque<>(roots);
+		while (!worklist.isEmpty()) {
+			for (SootMethod m : next.apply(worklist.poll())) {
+				if (visited.add(m)) {
+					worklist.add(m);
+				}
+			}
+		}
+		return visited;
+	}
+}
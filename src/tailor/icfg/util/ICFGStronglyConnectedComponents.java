@@ -19,26 +19,38 @@
 package tailor.icfg.util;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.Stack;
 
 import tailor.icfg.ICFG;
 
+/**
+ * Tarjan's algorithm over the call graph of an ICFG, run iteratively so
+ * that deep call chains do not overflow the thread stack.
+ *
+ * The methods reachable from the heads are numbered densely, and the
+ * (distinct) callees of each method are computed once into an array of
+ * IDs, which is kept for clients walking the call graph afterwards.
+ */
 public class ICFGStronglyConnectedComponents<N, M> {
 
 	protected final List<Set<M>> componentList = new ArrayList<>();
 	protected final List<Set<M>> trueComponentList = new ArrayList<>();
 	
-	protected int index = 0;
-	protected Map<M, Integer> indexForNode, lowlinkForNode;
-	protected Stack<M> s;
-	
-	protected ICFG<N, M> g;
+	// by method ID
+	protected final List<M> methods = new ArrayList<>();
+	protected final Map<M, Integer> methodToId = new HashMap<>();
+	protected final List<int[]> succs = new ArrayList<>();
+	protected int[] componentOf;
+	// by component index
+	protected final BitSet isTrueComponent = new BitSet();
 	
 	/**
       *  @param g a graph for which we want to compute the strongly
@@ -46,19 +58,16 @@ public class ICFGStronglyConnectedComponents<N, M> {
       *  @see ICFG
       */
 	public ICFGStronglyConnectedComponents(ICFG<N, M> g, M head) {
-		this.g = g;
-		s = new Stack<M>();
-		
-		indexForNode = new HashMap<>();
-		lowlinkForNode = new HashMap<>();
-		
-		recurse(head);
-		
-		//free memory
-	    indexForNode = null;
-	    lowlinkForNode = null;
-	    s = null;
-	    g = null;
+		this(g, Collections.singleton(head));
+	}
+	
+	public ICFGStronglyConnectedComponents(ICFG<N, M> g, Collection<M> heads) {
+		heads.forEach(this::idOf);
+		for (int id = 0; id < methods.size(); ++id) {
+			// numbers the callees, which are visited in later iterations
+			succs.add(computeSuccsOf(g, methods.get(id)));
+		}
+		computeComponents();
 	}
 	
 	public List<Set<M>> getComponents() {
@@ -70,51 +79,145 @@ public class ICFGStronglyConnectedComponents<N, M> {
 	}
 	
 	public Set<M> trueComponentContains(M m) {
-		for (Set<M> component : trueComponentList) {
-			if (component.contains(m)) {
-				return component;
-			}
+		int component = getComponentIndex(m);
+		if (component >= 0 && isTrueComponent.get(component)) {
+			return componentList.get(component);
 		}
 		return null;
 	}
 	
-	protected void recurse(M v) {
-		indexForNode.put(v, index);
-	    lowlinkForNode.put(v, index);
-	    ++index;
-	    s.push(v);	    
-	    getSuccsOf(v).forEach(callee -> {
-	    	if (!indexForNode.containsKey(callee)) {
-    			recurse(callee);
-    			lowlinkForNode.put(v, Math.min(lowlinkForNode.get(v), lowlinkForNode.get(callee)));
-    		} else if (s.contains(callee)) {
-    			lowlinkForNode.put(v, Math.min(lowlinkForNode.get(v), indexForNode.get(callee)));
-    		}
-	    });
-	    if(lowlinkForNode.get(v).intValue() == indexForNode.get(v).intValue()) {
-	    	Set<M> scc = new HashSet<>();
-	    	M v2;
-	    	do {
-	    		v2 = s.pop();
-	    		scc.add(v2);
-	    	} while (v != v2);
-	    	componentList.add(scc);
-	    	if (scc.size() > 1) {
-	    		trueComponentList.add(scc);
-	    	} else {
-	    		scc.forEach(n -> {
-		    		if (getSuccsOf(n).contains(n)) {
-		    			trueComponentList.add(scc);
-		    		}
-	    		});
-	    	}
-	    }
+	/**
+	 * Return the index of the component of `m` in getComponents(),
+	 * or -1 if `m` is not reachable from the heads.
+	 */
+	public int getComponentIndex(M m) {
+		Integer id = methodToId.get(m);
+		return id == null ? -1 : componentOf[id];
+	}
+	
+	public boolean isTrueComponent(int component) {
+		return isTrueComponent.get(component);
+	}
+	
+	/**
+	 * Return the ID of `m`, or -1 if `m` is not reachable from the heads.
+	 */
+	public int getMethodId(M m) {
+		Integer id = methodToId.get(m);
+		return id == null ? -1 : id;
+	}
+	
+	public M getMethod(int id) {
+		return methods.get(id);
+	}
+	
+	public int numMethods() {
+		return methods.size();
 	}
 	
-	protected Collection<M> getSuccsOf(M v) {
-		return g.getCallsFromWithin(v)
-				.stream()
-				.map(call -> g.getCalleesOfCallAt(call))
-				.reduce(new HashSet<>(), (s1, s2) -> { s1.addAll(s2); return s1; });	
+	/**
+	 * Return the IDs of the callees of method `id`, which must not be
+	 * modified.
+	 */
+	public int[] getSuccsOf(int id) {
+		return succs.get(id);
+	}
+	
+	private int idOf(M m) {
+		Integer id = methodToId.get(m);
+		if (id == null) {
+			id = methods.size();
+			methods.add(m);
+			methodToId.put(m, id);
+		}
+		return id;
+	}
+	
+	private int[] computeSuccsOf(ICFG<N, M> g, M m) {
+		Set<M> callees = new LinkedHashSet<>();
+		for (N call : g.getCallsFromWithin(m)) {
+			callees.addAll(g.getCalleesOfCallAt(call));
+		}
+		int[] res = new int[callees.size()];
+		int i = 0;
+		for (M callee : callees) {
+			res[i++] = idOf(callee);
+		}
+		return res;
+	}
+	
+	protected void computeComponents() {
+		int n = methods.size();
+		int[] index = new int[n];
+		int[] lowlink = new int[n];
+		Arrays.fill(index, -1);
+		componentOf = new int[n];
+		BitSet onStack = new BitSet(n);
+		int[] stack = new int[n];
+		int sp = 0;
+		// the DFS path: methods and the positions in their successors
+		int[] path = new int[n];
+		int[] succPos = new int[n];
+		int depth;
+		int counter = 0;
+		for (int root = 0; root < n; ++root) {
+			if (index[root] >= 0) {
+				continue;
+			}
+			depth = 0;
+			path[0] = root;
+			succPos[0] = 0;
+			index[root] = lowlink[root] = counter++;
+			stack[sp++] = root;
+			onStack.set(root);
+			while (depth >= 0) {
+				int v = path[depth];
+				int[] vSuccs = succs.get(v);
+				if (succPos[depth] < vSuccs.length) {
+					int w = vSuccs[succPos[depth]++];
+					if (index[w] < 0) {
+						index[w] = lowlink[w] = counter++;
+						stack[sp++] = w;
+						onStack.set(w);
+						++depth;
+						path[depth] = w;
+						succPos[depth] = 0;
+					} else if (onStack.get(w)) {
+						lowlink[v] = Math.min(lowlink[v], index[w]);
+					}
+					continue;
+				}
+				if (lowlink[v] == index[v]) {
+					int component = componentList.size();
+					Set<M> scc = new LinkedHashSet<>();
+					int w;
+					do {
+						w = stack[--sp];
+						onStack.clear(w);
+						componentOf[w] = component;
+						scc.add(methods.get(w));
+					} while (w != v);
+					componentList.add(scc);
+					if (scc.size() > 1 || contains(vSuccs, v)) {
+						isTrueComponent.set(component);
+						trueComponentList.add(scc);
+					}
+				}
+				--depth;
+				if (depth >= 0) {
+					int u = path[depth];
+					lowlink[u] = Math.min(lowlink[u], lowlink[v]);
+				}
+			}
+		}
+	}
+	
+	private static boolean contains(int[] ids, int id) {
+		for (int i : ids) {
+			if (i == id) {
+				return true;
+			}
+		}
+		return false;
 	}
 }
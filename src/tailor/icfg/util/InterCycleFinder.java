@@ -18,70 +18,109 @@
 
 package tailor.icfg.util;
 
+import java.util.ArrayDeque;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
-import java.util.Stack;
 
 import soot.SootMethod;
 import soot.Unit;
 import tailor.icfg.BlockedJimpleBasedICFG;
 
+/**
+ * Break the inter-procedural cycles (i.e., recursion) reachable from the
+ * head by blocking the back edges of one depth-first traversal of the
+ * call graph: a call edge is a back edge if its callee is on the
+ * current traversal path. Removing all back edges leaves the reachable
+ * call graph acyclic, so no further rounds are needed.
+ *
+ * Back edges lie within the true SCCs, so the traversal is skipped if
+ * there are none, and the other edges need not be checked.
+ */
 public class InterCycleFinder {
 	
 	public Map<Unit, Set<SootMethod>> find(BlockedJimpleBasedICFG icfg,
 			SootMethod head) {
-		Map<Unit, Set<SootMethod>> interCycles = new HashMap<>();
-		ICFGStronglyConnectedComponents<Unit, SootMethod> scc = 
+		ICFGStronglyConnectedComponents<Unit, SootMethod> scc =
 				new ICFGStronglyConnectedComponents<>(icfg, head);
-		while (scc.getTrueComponents().size() > 0) {
-			Map<Unit, SootMethod> backEdges = findBackEdges(icfg, head, scc);
-			backEdges.forEach((call, callee) -> {
-				if (!interCycles.containsKey(call)) {
-					interCycles.put(call, new HashSet<>());
-				}
-				interCycles.get(call).add(callee);
-			});
-			icfg.addInterCyclesToBeBlocked(interCycles);
-			
-			scc = new ICFGStronglyConnectedComponents<>(icfg, head);
+		if (scc.getTrueComponents().isEmpty()) {
+			return new HashMap<>();
 		}
+		Map<Unit, Set<SootMethod>> interCycles = findBackEdges(icfg, head, scc);
+		icfg.addInterCyclesToBeBlocked(interCycles);
 		return interCycles;
 	}
 
-	protected Map<Unit, SootMethod> findBackEdges(BlockedJimpleBasedICFG icfg,
+	protected Map<Unit, Set<SootMethod>> findBackEdges(BlockedJimpleBasedICFG icfg,
 			SootMethod head,
 			ICFGStronglyConnectedComponents<Unit, SootMethod> scc) {
-		Stack<SootMethod> stack = new Stack<>();
+		Map<Unit, Set<SootMethod>> backEdges = new HashMap<>();
 		Set<SootMethod> visited = new HashSet<>();
-		Map<Unit, SootMethod> backEdges = new HashMap<>();
-		stack.push(head);
-		while (!stack.isEmpty()) {
-			SootMethod m = stack.pop();
-			visited.add(m);
-			Set<SootMethod> component = scc.trueComponentContains(m);
-			if (component != null) {
-				icfg.getCallersOf(m).forEach(call -> {
-					if (component.contains(icfg.getMethodOf(call))) {
-						backEdges.put(call, m);
+		Set<SootMethod> onPath = new HashSet<>();
+		Deque<Frame> path = new ArrayDeque<>();
+		visited.add(head);
+		onPath.add(head);
+		path.push(new Frame(icfg, head));
+		while (!path.isEmpty()) {
+			Frame frame = path.peek();
+			if (frame.hasNext()) {
+				Unit call = frame.call;
+				SootMethod callee = frame.next();
+				int component = scc.getComponentIndex(callee);
+				if (component == scc.getComponentIndex(frame.method)
+						&& scc.isTrueComponent(component)
+						&& onPath.contains(callee)) {
+					if (!backEdges.containsKey(call)) {
+						backEdges.put(call, new HashSet<>());
 					}
-				});
-				break;
+					backEdges.get(call).add(callee);
+				} else if (visited.add(callee)) {
+					onPath.add(callee);
+					path.push(new Frame(icfg, callee));
+				}
 			} else {
-				icfg.getCallsFromWithin(m).forEach(call -> {
-					icfg.getCalleesOfCallAt(call).forEach(callee -> {
-						if (!visited.contains(callee)) {
-							stack.push(callee);
-						}
-					});
-				});
+				onPath.remove(path.pop().method);
 			}
 		}
 		return backEdges;
 	}
 	
+	/**
+	 * The call edges of a method on the traversal path which have not
+	 * been traversed yet.
+	 */
+	private static class Frame {
+		
+		final BlockedJimpleBasedICFG icfg;
+		final SootMethod method;
+		final Iterator<Unit> calls;
+		Unit call;
+		Iterator<SootMethod> callees = Collections.emptyIterator();
+		
+		Frame(BlockedJimpleBasedICFG icfg, SootMethod method) {
+			this.icfg = icfg;
+			this.method = method;
+			this.calls = icfg.getCallsFromWithin(method).iterator();
+		}
+		
+		boolean hasNext() {
+			while (!callees.hasNext() && calls.hasNext()) {
+				call = calls.next();
+				callees = icfg.getCalleesOfCallAt(call).iterator();
+			}
+			return callees.hasNext();
+		}
+		
+		SootMethod next() {
+			return callees.next();
+		}
+	}
+	
 	public static void printMap(Map<?, ?> m) {
 		System.out.println("Map size: " + m.size());
 		m.forEach((k, v) -> {
@@ -24,7 +24,6 @@ import java.util.ArrayDeque;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
@@ -36,7 +35,6 @@ import soot.jimple.CaughtExceptionRef;
 import soot.jimple.IdentityStmt;
 import soot.toolkits.graph.DirectedGraph;
 import soot.toolkits.graph.DominatorsFinder;
-import soot.toolkits.graph.MHGDominatorsFinder;
 
 public class IntraCycleFinder {
 
@@ -51,6 +49,22 @@ public class IntraCycleFinder {
 		// 2. construct natural loops
 		computeLoops(graph, backEdges);
 		
+		return findRedirections(graph, backEdges);
+	}
+	
+	/**
+	 * Same as find(), but takes the dominators, back edges and loops
+	 * shared by `cfg`, see MethodCFGStore.
+	 */
+	public Map<Pair<Unit, Unit>, Set<Unit>> find(UnitCFG cfg, SootMethod m) {
+		domFinder = cfg.getDominators();
+		Set<Pair<Unit, Unit>> backEdges = cfg.getBackEdges();
+		loops = cfg.getLoops();
+		return findRedirections(cfg.getGraph(), backEdges);
+	}
+	
+	private Map<Pair<Unit, Unit>, Set<Unit>> findRedirections(DirectedGraph<Unit> graph,
+			Set<Pair<Unit, Unit>> backEdges) {
 		// 3. find exits of loops
 		exitsOfLoops = new HashMap<>();
 		loops.keySet().forEach(h -> findExitsOfLoop(h, graph));
@@ -73,15 +87,23 @@ public class IntraCycleFinder {
 	}
 	
 	public Set<Pair<Unit, Unit>> findBackEdges(DirectedGraph<Unit> graph) {
-		domFinder = new MHGDominatorsFinder<>(graph);
+		return findBackEdges(graph, DominatorTreeFinder.dominators(graph));
+	}
+	
+	/**
+	 * An edge n -> d is a back edge if d dominates n, which is a
+	 * constant-time query for DominatorTreeFinder.
+	 */
+	public Set<Pair<Unit, Unit>> findBackEdges(DirectedGraph<Unit> graph,
+			DominatorsFinder<Unit> domFinder) {
+		this.domFinder = domFinder;
 		Set<Pair<Unit, Unit>> backEdges = new HashSet<>();
 		graph.forEach(n -> {
-			List<Unit> doms = domFinder.getDominators(n);
-			List<Unit> backEdgePreds = doms
-					.stream()
-					.filter(d -> graph.getSuccsOf(n).contains(d))
-					.collect(Collectors.toList());
-			backEdgePreds.forEach(d -> backEdges.add(new Pair<>(n, d)));
+			graph.getSuccsOf(n).forEach(d -> {
+				if (domFinder.isDominatedBy(n, d)) {
+					backEdges.add(new Pair<>(n, d));
+				}
+			});
 		});
 		return backEdges;
 	}
@@ -131,7 +153,7 @@ public class IntraCycleFinder {
 			// Deal with special nested loop
 			Set<Unit> outerHeads = exits
 					.stream()
-					.filter(u -> domFinder.getDominators(head).contains(u))
+					.filter(u -> domFinder.isDominatedBy(head, u))
 					.collect(Collectors.toSet());
 			exits.removeAll(outerHeads);
 			outerHeads.forEach(h -> {
@@ -0,0 +1,67 @@
+/* Tailor - Program Tailoring: Slicing by Sequential Criteria
+ *
+ * Copyright (C) 2016 Yue Li, Tian Tan, Jingling Xue
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package tailor.icfg.util;
+
+import soot.toolkits.graph.DirectedGraph;
+
+/**
+ * The control-flow graph of a method without exceptional flow (see
+ * NoExceptionGraph), with the analyses of it which are shared by the
+ * taggers and cycle finders. Each analysis is computed on first use.
+ *
+ * @see UnitCFG
+ * @see MethodCFGStore
+ */
+public class MethodCFG<N> {
+
+	private final DirectedGraph<N> graph;
+	
+	private DominatorTreeFinder<N> dominators, postDominators;
+	
+	private ControlDependenceGraph<N> controlDependences;
+	
+	public MethodCFG(DirectedGraph<N> graph) {
+		this.graph = new NoExceptionGraph<>(graph);
+	}
+	
+	public DirectedGraph<N> getGraph() {
+		return graph;
+	}
+	
+	public synchronized DominatorTreeFinder<N> getDominators() {
+		if (dominators == null) {
+			dominators = DominatorTreeFinder.dominators(graph);
+		}
+		return dominators;
+	}
+	
+	public synchronized DominatorTreeFinder<N> getPostDominators() {
+		if (postDominators == null) {
+			postDominators = DominatorTreeFinder.postDominators(graph);
+		}
+		return postDominators;
+	}
+	
+	public synchronized ControlDependenceGraph<N> getControlDependences() {
+		if (controlDependences == null) {
+			controlDependences = new ControlDependenceGraph<>(graph, getPostDominators());
+		}
+		return controlDependences;
+	}
+}
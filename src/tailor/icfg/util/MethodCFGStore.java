@@ -0,0 +1,115 @@
+/* Tailor - Program Tailoring: Slicing by Sequential Criteria
+ *
+ * Copyright (C) 2016 Yue Li, Tian Tan, Jingling Xue
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package tailor.icfg.util;
+
+import heros.solver.Pair;
+import soot.SootMethod;
+import soot.toolkits.graph.Block;
+import soot.toolkits.graph.BriefBlockGraph;
+import soot.toolkits.graph.BriefUnitGraph;
+import tailor.icfg.UnitGraphStore;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+
+/**
+ * The control-flow graphs of the methods and their analyses (see
+ * MethodCFG), keyed by method and kind of graph, and shared by all
+ * taggers and cycle finders, so that e.g. the dominators of a method
+ * are computed once rather than once per consumer.
+ *
+ * Like UnitGraphStore, the entries are softly referenced, hence they
+ * are dropped under memory pressure and rebuilt on demand.
+ */
+public enum MethodCFGStore {
+	// Enable singleton pattern
+	INSTANCE;
+
+	public enum GraphKind {
+		// BriefUnitGraph
+		BRIEF_UNIT,
+		// BriefBlockGraph
+		BRIEF_BLOCK,
+		// the ExceptionalUnitGraph of the ICFGs, see UnitGraphStore
+		EXCEPTIONAL_UNIT,
+	}
+
+	private final LoadingCache<Pair<SootMethod, GraphKind>, MethodCFG<?>> methodToCFG =
+			CacheBuilder.newBuilder()
+				.concurrencyLevel(Runtime.getRuntime().availableProcessors())
+				.softValues()
+				.recordStats()
+				.build(new CacheLoader<Pair<SootMethod, GraphKind>, MethodCFG<?>>() {
+					@Override
+					public MethodCFG<?> load(Pair<SootMethod, GraphKind> key) throws Exception {
+						SootMethod m = key.getO1();
+						switch (key.getO2()) {
+						case BRIEF_UNIT:
+							return new UnitCFG(new BriefUnitGraph(m.getActiveBody()));
+						case BRIEF_BLOCK:
+							return new MethodCFG<>(new BriefBlockGraph(m.getActiveBody()));
+						case EXCEPTIONAL_UNIT:
+							return new UnitCFG(UnitGraphStore.INSTANCE
+									.getUnitGraph(m.getActiveBody()));
+						default:
+							throw new IllegalArgumentException("Unknown graph kind: " + key.getO2());
+						}
+					}
+				});
+
+	/**
+	 * Return the CFG of `m` of kind BRIEF_UNIT or EXCEPTIONAL_UNIT.
+	 */
+	public UnitCFG getUnitCFG(SootMethod m, GraphKind kind) {
+		if (kind == GraphKind.BRIEF_BLOCK) {
+			throw new IllegalArgumentException("Not a unit graph: " + kind);
+		}
+		return (UnitCFG) methodToCFG.getUnchecked(new Pair<>(m, kind));
+	}
+
+	@SuppressWarnings("unchecked")
+	public MethodCFG<Block> getBlockCFG(SootMethod m) {
+		return (MethodCFG<Block>) methodToCFG.getUnchecked(
+				new Pair<>(m, GraphKind.BRIEF_BLOCK));
+	}
+
+	/** Hit and miss counts, etc., of the store */
+	public CacheStats stats() {
+		return methodToCFG.stats();
+	}
+
+	public long size() {
+		return methodToCFG.size();
+	}
+
+	public void clear() {
+		methodToCFG.invalidateAll();
+	}
+
+	@Override
+	public String toString() {
+		CacheStats stats = stats();
+		return "MethodCFGStore: " + size() + " CFGs, "
+				+ stats.hitCount() + " hits, "
+				+ stats.missCount() + " misses, "
+				+ stats.evictionCount() + " evictions";
+	}
+}
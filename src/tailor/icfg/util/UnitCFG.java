@@ -0,0 +1,64 @@
+/* Tailor - Program Tailoring: Slicing by Sequential Criteria
+ *
+ * Copyright (C) 2016 Yue Li, Tian Tan, Jingling Xue
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package tailor.icfg.util;
+
+import heros.solver.Pair;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+import soot.Unit;
+import soot.toolkits.graph.DirectedGraph;
+
+/**
+ * A MethodCFG over units, which also holds the back edges and the
+ * natural loops of the method (see IntraCycleFinder).
+ */
+public class UnitCFG extends MethodCFG<Unit> {
+
+	private Set<Pair<Unit, Unit>> backEdges;
+	private Map<Unit, Set<Unit>> loops;
+	
+	public UnitCFG(DirectedGraph<Unit> graph) {
+		super(graph);
+	}
+	
+	/**
+	 * Return the back edges, as (source, header) pairs.
+	 */
+	public synchronized Set<Pair<Unit, Unit>> getBackEdges() {
+		if (backEdges == null) {
+			backEdges = Collections.unmodifiableSet(new IntraCycleFinder()
+					.findBackEdges(getGraph(), getDominators()));
+		}
+		return backEdges;
+	}
+	
+	/**
+	 * Return the nodes of the natural loops, by their headers.
+	 */
+	public synchronized Map<Unit, Set<Unit>> getLoops() {
+		if (loops == null) {
+			loops = Collections.unmodifiableMap(new IntraCycleFinder()
+					.computeLoops(getGraph(), getBackEdges()));
+		}
+		return loops;
+	}
+}
@@ -34,7 +34,6 @@ import soot.Unit;
 import soot.jimple.toolkits.ide.DefaultJimpleIFDSTabulationProblem;
 import tailor.icfg.BackwardsICFG;
 import tailor.icfg.ICFG;
-import tailor.tag.MainReachableTag;
 
 public class IFDSBottomUpTailor
 		extends
@@ -43,6 +42,7 @@ public class IFDSBottomUpTailor
 	protected ICFG<Unit, SootMethod> fwICFG;
 	protected StatementSequenceUtil util;
 	protected Set<Unit> initialUnits; // entry points of Bottom-Up analysis
+	protected int numThreads = Runtime.getRuntime().availableProcessors();
 	
 	public IFDSBottomUpTailor(BackwardsICFG icfg,
 			StatementSequenceUtil util,
@@ -53,6 +53,15 @@ public class IFDSBottomUpTailor
 		this.initialUnits = initialUnits;
 	}
 
+	@Override
+	public int numThreads() {
+		return numThreads;
+	}
+	
+	public void setNumThreads(int numThreads) {
+		this.numThreads = numThreads;
+	}
+	
 	@Override
 	public Map<Unit, Set<StatementSequence>> initialSeeds() {
 		Map<Unit, Set<StatementSequence>> res = new HashMap<Unit, Set<StatementSequence>>();
@@ -66,7 +75,6 @@ public class IFDSBottomUpTailor
 		@Override
 		public FlowFunction<StatementSequence> getNormalFlowFunction(
 				Unit curr, Unit succ) {
-			addReachableTag(curr);
 			return Identity.v();
 		}
 
@@ -74,7 +82,6 @@ public class IFDSBottomUpTailor
 		public FlowFunction<StatementSequence> getCallFlowFunction(
 				Unit callStmt, SootMethod destinationMethod) {
 			// the calls to API method have been ignored by BlockedICFG
-			addReachableTag(callStmt);
 			return Identity.v();
 		}
 
@@ -82,7 +89,6 @@ public class IFDSBottomUpTailor
 		public FlowFunction<StatementSequence> getReturnFlowFunction(
 				Unit callSite, SootMethod calleeMethod, Unit exitStmt,
 				Unit returnSite) {
-			addReachableTag(exitStmt);
 			// NOTICE: `callSite` is the true return site, and 
 			// `returnSite` is the true call site.
 			if (fwICFG.getCallersOf(calleeMethod).contains(returnSite)) {
@@ -97,21 +103,22 @@ public class IFDSBottomUpTailor
 		@Override
 		public FlowFunction<StatementSequence> getCallToReturnFlowFunction(
 				Unit callSite, Unit returnSite) {
-			addReachableTag(callSite);
 			// NOTICE: `callSite` is the true return site, and 
 			// `returnSite` is the true call site.
 			if (util.isUnitOfSC(returnSite)) {
 				return new FlowFunction<StatementSequence>() {
 					@Override
 					public Set<StatementSequence> computeTargets(StatementSequence source) {
-						if (source == zeroValue()) {
-							if (util.isTail(returnSite)) {
-								return singleton(source.addHead(returnSite));
-							}
-						} else if (util.canAddHead(returnSite, source)) {
-							return twoElementSet(source, source.addHead(returnSite));
+						// one transition of the SC automaton; from the zero
+						// value it succeeds iff `returnSite` is a tail
+						StatementSequence target = util.addHeadAlongSC(returnSite, source);
+						if (target == null) {
+							return singleton(source);
+						} else if (source == zeroValue()) {
+							return singleton(target);
+						} else {
+							return twoElementSet(source, target);
 						}
-						return singleton(source);
 					}
 				};
 			} else {
@@ -133,10 +140,4 @@ public class IFDSBottomUpTailor
 	protected StatementSequence createZeroValue() {
 		return util.createZeroValue();
 	}
-	
-	protected void addReachableTag(Unit u) {
-		if (!u.hasTag(MainReachableTag.NAME)) {
-			u.addTag(MainReachableTag.INSTANCE);
-		}
-	}
 }
@@ -18,39 +18,196 @@
 
 package tailor.ifds;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
 
 import soot.SootMethod;
 import soot.Unit;
 import soot.jimple.toolkits.ide.JimpleIFDSSolver;
 
 import tailor.icfg.ICFG;
+import tailor.icfg.UnitNumbering;
 
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * A snapshot of the IFDS results of a solver, indexed by unit ID
+ * (see UnitNumbering). Each unit holds one int: an index into a pool of
+ * immutable fact sets, in which equal sets are shared, or the index of
+ * its only fact for the (most common) singleton sets.
+ *
+ * Sets are keyed in the pool by the sorted IDs of their (interned)
+ * facts, so that pooling never hashes whole sets of sequences.
+ */
 public class IFDSResultMap {
 
-	Map<Set<StatementSequence>, Set<StatementSequence>> resultSetPool = new HashMap<>();
-	Map<Unit, Set<StatementSequence>> resultMap = new HashMap<>(); 
-	
+	private static final int NONE = -1;
+	private static final int EMPTY = 0;
+
+	private final UnitNumbering numbering = UnitNumbering.INSTANCE;
+
+	// pooled fact sets, indexed by the non-negative entries of `unitToFactSet`
+	private final List<Set<StatementSequence>> factSets = new ArrayList<>();
+	// singleton fact sets, indexed by -(entry + 2) of `unitToFactSet`
+	private final List<Set<StatementSequence>> singletons = new ArrayList<>();
+	private final int[] unitToFactSet;
+
+	public IFDSResultMap(JimpleIFDSSolver<StatementSequence,ICFG<Unit,SootMethod>> solver,
+			ICFG<Unit,SootMethod> icfg,
+			int numThreads) {
+		this(solver, icfg, UnaryOperator.identity(), numThreads);
+	}
+
+	/**
+	 * Take the results of each unit of `icfg` from the node
+	 * `representative` maps it to, e.g., see BlockICFG.
+	 */
 	public IFDSResultMap(JimpleIFDSSolver<StatementSequence,ICFG<Unit,SootMethod>> solver,
-			ICFG<Unit,SootMethod> icfg) {
-		icfg.allMethods().forEach(m -> {
-			m.getActiveBody().getUnits().forEach(u -> {
-				resultMap.put(u, getFactSet(solver.ifdsResultsAt(u)));
-			});
-		});
-	}
-	
+			ICFG<Unit,SootMethod> icfg,
+			UnaryOperator<Unit> representative,
+			int numThreads) {
+		// read the results of the units of each method in parallel
+		// on `numThreads` threads, as facts sorted by ID
+		List<SootMethod> methods = new ArrayList<>(icfg.allMethods());
+		List<List<UnitFacts>> results;
+		ForkJoinPool pool = new ForkJoinPool(numThreads);
+		try {
+			results = pool.submit(() -> methods.parallelStream()
+						.map(m -> {
+							List<UnitFacts> unitFacts = new ArrayList<>();
+							m.getActiveBody().getUnits().forEach(u ->
+								unitFacts.add(new UnitFacts(numbering.getId(u),
+										sortedFacts(solver.ifdsResultsAt(representative.apply(u))))));
+							return unitFacts;
+						})
+						.collect(Collectors.toList()))
+					.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Reading the IFDS results is interrupted.", e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException("Reading the IFDS results fails.", e.getCause());
+		} finally {
+			pool.shutdown();
+		}
+
+		unitToFactSet = new int[numbering.size()];
+		Arrays.fill(unitToFactSet, NONE);
+		factSets.add(Collections.emptySet()); // EMPTY
+		Map<FactIds, Integer> factSetPool = new HashMap<>();
+		Map<StatementSequence, Integer> singletonPool = new HashMap<>();
+		results.forEach(unitFacts -> unitFacts.forEach(uf -> {
+			StatementSequence[] facts = uf.facts;
+			int entry;
+			if (facts.length == 0) {
+				entry = EMPTY;
+			} else if (facts.length == 1) {
+				Integer index = singletonPool.get(facts[0]);
+				if (index == null) {
+					index = singletons.size();
+					singletons.add(Collections.singleton(facts[0]));
+					singletonPool.put(facts[0], index);
+				}
+				entry = -(index + 2);
+			} else {
+				FactIds key = new FactIds(facts);
+				Integer index = factSetPool.get(key);
+				if (index == null) {
+					index = factSets.size();
+					factSets.add(ImmutableSet.copyOf(facts));
+					factSetPool.put(key, index);
+				}
+				entry = index;
+			}
+			unitToFactSet[uf.unitId] = entry;
+		}));
+	}
+
 	public Set<StatementSequence> ifdsResultsAt(Unit u) {
-		return resultMap.get(u);
+		return ifdsResultsAt(numbering.getIdIfPresent(u));
+	}
+
+	/**
+	 * Return the results at the unit of ID `unitId`, or null if the
+	 * unit is not in the ICFG.
+	 */
+	public Set<StatementSequence> ifdsResultsAt(int unitId) {
+		if (unitId < 0 || unitId >= unitToFactSet.length) {
+			return null;
+		}
+		int entry = unitToFactSet[unitId];
+		if (entry >= 0) {
+			return factSets.get(entry);
+		} else if (entry == NONE) {
+			return null;
+		} else {
+			return singletons.get(-(entry + 2));
+		}
+	}
+
+	/**
+	 * Return whether the unit of ID `unitId` holds some facts.
+	 */
+	public boolean hasResultsAt(int unitId) {
+		if (unitId < 0 || unitId >= unitToFactSet.length) {
+			return false;
+		}
+		int entry = unitToFactSet[unitId];
+		return entry != NONE && entry != EMPTY;
 	}
-	
-	private Set<StatementSequence> getFactSet(Set<StatementSequence> factSet) {
-		if (!resultSetPool.containsKey(factSet)) {
-			resultSetPool.put(factSet, factSet);
+
+	private static StatementSequence[] sortedFacts(Set<StatementSequence> factSet) {
+		StatementSequence[] facts = new StatementSequence[factSet.size()];
+		int i = 0;
+		for (StatementSequence fact : factSet) {
+			facts[i++] = fact.canonical();
+		}
+		Arrays.sort(facts, Comparator.comparingInt(StatementSequence::getId));
+		return facts;
+	}
+
+	private static class UnitFacts {
+		final int unitId;
+		final StatementSequence[] facts;
+
+		UnitFacts(int unitId, StatementSequence[] facts) {
+			this.unitId = unitId;
+			this.facts = facts;
 		}
-		return resultSetPool.get(factSet);
 	}
 
+	/** The sorted IDs of the facts of a set, as the key of the pool. */
+	private static class FactIds {
+		final int[] ids;
+		final int hashCode;
+
+		FactIds(StatementSequence[] facts) {
+			ids = new int[facts.length];
+			for (int i = 0; i < facts.length; ++i) {
+				ids[i] = facts[i].getId();
+			}
+			hashCode = Arrays.hashCode(ids);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof FactIds
+					&& Arrays.equals(ids, ((FactIds) obj).ids);
+		}
+	}
 }
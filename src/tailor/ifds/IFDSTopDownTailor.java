@@ -41,6 +41,7 @@ public class IFDSTopDownTailor
 
 	protected StatementSequenceUtil util;
 	protected Set<StatementSequence> initialFacts; // initial facts at entry point
+	protected int numThreads = Runtime.getRuntime().availableProcessors();
 	
 	public IFDSTopDownTailor(ICFG<Unit, SootMethod> icfg,
 			StatementSequenceUtil util,
@@ -50,6 +51,15 @@ public class IFDSTopDownTailor
 		this.initialFacts = initialFacts;
 	}
 
+	@Override
+	public int numThreads() {
+		return numThreads;
+	}
+	
+	public void setNumThreads(int numThreads) {
+		this.numThreads = numThreads;
+	}
+	
 	@Override
 	public Map<Unit, Set<StatementSequence>> initialSeeds() {
 		initialFacts.add(zeroValue());
@@ -0,0 +1,163 @@
+/* Tailor - Program Tailoring: Slicing by Sequential Criteria
+ *
+ * Copyright (C) 2016 Yue Li, Tian Tan, Jingling Xue
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package tailor.ifds;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import soot.Unit;
+import tailor.icfg.UnitNumbering;
+
+/**
+ * The deterministic suffix automaton of a SC, i.e., the trie of its
+ * reversed statement sequences. Every state stands for a suffix of a
+ * sequence in the SC, and the state of suffix w moves to the state of
+ * u.w on unit u. State 0 stands for the empty suffix.
+ *
+ * As statement sequences are hash-consed, each state is identified with
+ * its interned sequence, so that the bottom-up facts are exactly the
+ * states of the automaton (without SC extension) and adding a head
+ * along the SC is a single array transition.
+ */
+public class SCAutomaton {
+
+	private static final UnitNumbering numbering = UnitNumbering.INSTANCE;
+
+	// sorted IDs of the units of the SC; the index of a unit
+	// in this array is its symbol
+	private final int[] alphabet;
+	private final BitSet heads;
+	private final StatementSequence[] states;
+	// states.length * alphabet.length transition table, -1 for no transition
+	private final int[] delta;
+	// fact ID -> state, -1 if the fact is not a suffix of the SC
+	private final int[] stateOfFact;
+
+	private SCAutomaton(int[] alphabet, BitSet heads,
+			StatementSequence[] states, int[] delta, int[] stateOfFact) {
+		this.alphabet = alphabet;
+		this.heads = heads;
+		this.states = states;
+		this.delta = delta;
+		this.stateOfFact = stateOfFact;
+	}
+
+	public static SCAutomaton compile(Set<StatementSequence> sc) {
+		List<StatementSequence> states = new ArrayList<>();
+		Map<StatementSequence, Integer> stateOfSuffix = new HashMap<>();
+		BitSet units = new BitSet();
+		BitSet heads = new BitSet();
+		states.add(StatementSequence.epsilon());
+		stateOfSuffix.put(StatementSequence.epsilon(), 0);
+		for (StatementSequence seq : sc) {
+			if (seq.length() == 0) {
+				continue;
+			}
+			heads.set(seq.getHeadId());
+			for (StatementSequence suffix = seq.canonical();
+					!stateOfSuffix.containsKey(suffix);
+					suffix = suffix.removeHead()) {
+				units.set(suffix.getHeadId());
+				stateOfSuffix.put(suffix, states.size());
+				states.add(suffix);
+			}
+		}
+
+		int[] alphabet = units.stream().toArray();
+		int[] delta = new int[states.size() * alphabet.length];
+		Arrays.fill(delta, -1);
+		int maxFactId = 0;
+		for (int state = 1; state < states.size(); ++state) {
+			StatementSequence suffix = states.get(state);
+			int from = stateOfSuffix.get(suffix.removeHead());
+			int symbol = Arrays.binarySearch(alphabet, suffix.getHeadId());
+			delta[from * alphabet.length + symbol] = state;
+			maxFactId = Math.max(maxFactId, suffix.getId());
+		}
+		int[] stateOfFact = new int[maxFactId + 1];
+		Arrays.fill(stateOfFact, -1);
+		for (int state = 0; state < states.size(); ++state) {
+			stateOfFact[states.get(state).getId()] = state;
+		}
+		return new SCAutomaton(alphabet, heads,
+				states.toArray(new StatementSequence[0]), delta, stateOfFact);
+	}
+
+	public int size() {
+		return states.length;
+	}
+
+	/**
+	 * Return the symbol of `u`, or -1 if `u` is not a unit of the SC.
+	 */
+	public int symbolOf(Unit u) {
+		int id = numbering.getIdIfPresent(u);
+		return id >= 0 ? symbolOf(id) : -1;
+	}
+
+	int symbolOf(int unitId) {
+		int symbol = Arrays.binarySearch(alphabet, unitId);
+		return symbol >= 0 ? symbol : -1;
+	}
+
+	/**
+	 * Return the state of `fact`, or -1 if `fact` is not a suffix of the SC.
+	 * The zero value and epsilon are in the initial state 0.
+	 */
+	public int stateOf(StatementSequence fact) {
+		int id = fact.canonical().getId();
+		return id < stateOfFact.length ? stateOfFact[id] : -1;
+	}
+
+	/**
+	 * Return the state reached from `state` on `symbol`, or -1.
+	 */
+	public int next(int state, int symbol) {
+		if (state < 0 || symbol < 0) {
+			return -1;
+		}
+		return delta[state * alphabet.length + symbol];
+	}
+
+	public StatementSequence getFact(int state) {
+		return states[state];
+	}
+
+	public boolean isUnitOfSC(Unit u) {
+		return symbolOf(u) >= 0;
+	}
+
+	public boolean isSCHead(Unit u) {
+		int id = numbering.getIdIfPresent(u);
+		return id >= 0 && heads.get(id);
+	}
+
+	boolean isSCHead(int unitId) {
+		return heads.get(unitId);
+	}
+
+	public boolean isTail(Unit u) {
+		return next(0, symbolOf(u)) >= 0;
+	}
+}
@@ -18,90 +18,172 @@
 
 package tailor.ifds;
 
+import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
 
 import soot.Unit;
+import tailor.icfg.UnitNumbering;
 
-public class StatementSequence {
+/**
+ * A statement sequence is represented as a cons cell (head, rest).
+ * The cells are hash-consed in a global intern table, so that sequences
+ * share their tails, addHead() is a table lookup, removeHead() returns
+ * the stored rest, and two interned sequences are equal iff they are
+ * the same object.
+ *
+ * Units are stored by their dense ID (see {@link UnitNumbering}), and
+ * every interned sequence has a dense ID of its own; a cell is keyed by
+ * the packed pair (ID of head, ID of rest).
+ *
+ * Sequences created by the public constructors are not interned; only their
+ * rest is. They are still compared by value, which costs O(1) as well.
+ */
+public class StatementSequence implements Iterable<Unit> {
+
+	private static final UnitNumbering numbering = UnitNumbering.INSTANCE;
 	
-	private final LinkedList<Unit> stmtSeq;
+	private final int headId;
+	private final StatementSequence rest; // null iff the sequence is empty
+	private final int lastId;
+	private final int length;
 	private final int hashCode;
-	
+	private final int id; // -1 iff the sequence is not interned
+
+	// open-addressing intern table, read without locking
+	private static volatile StatementSequence[] internTable
+		= new StatementSequence[1 << 12];
+	private static int internCount = 0;
+
 	private static final StatementSequence epsilon
-		= new StatementSequence();
-	
+		= new StatementSequence(-1, null, 0);
+
 	public StatementSequence(LinkedList<Unit> stmtSeq) {
 		// the stmtSeq should not be null!
-		this.stmtSeq = stmtSeq;
-		this.hashCode = stmtSeq.hashCode();
+		this(stmtSeq.isEmpty() ? -1 : numbering.getId(stmtSeq.getFirst()),
+				stmtSeq.isEmpty() ? null : valueOf(stmtSeq.subList(1, stmtSeq.size())),
+				-1);
 	}
-	
+
 	public StatementSequence() {
-		this(new LinkedList<Unit>());
+		this(-1, null, -1);
+	}
+
+	private StatementSequence(int headId, StatementSequence rest, int id) {
+		this.headId = headId;
+		this.rest = rest;
+		this.id = id;
+		if (rest == null) {
+			this.lastId = -1;
+			this.length = 0;
+			this.hashCode = 1;
+		} else {
+			this.lastId = rest.length == 0 ? headId : rest.lastId;
+			this.length = rest.length + 1;
+			this.hashCode = 31 * rest.hashCode + headId;
+		}
 	}
 
+	/** Return a *new* list holding the units of this sequence */
 	public LinkedList<Unit> getStmtSeq() {
+		LinkedList<Unit> stmtSeq = new LinkedList<>();
+		forEach(stmtSeq::add);
 		return stmtSeq;
 	}
-	
+
 	public Unit getHead() {
-		return stmtSeq.getFirst();
+		return numbering.getUnit(getHeadId());
 	}
-	
+
 	public Unit getTail() {
-		return stmtSeq.getLast();
+		return numbering.getUnit(getTailId());
 	}
-	
-	/** Return a *new* fact with added APICall */
+
+	/** Return a fact with added APICall */
 	public StatementSequence addHead(Unit stmt) {
-		LinkedList<Unit> newStmtSeq = new LinkedList<>(stmtSeq);
-		newStmtSeq.addFirst(stmt);
-		return createInstance(newStmtSeq);
+		return addHead(numbering.getId(stmt));
 	}
-	
-	/** Return a *new* fact whose first APICall item
+
+	/** Return a fact whose first APICall item
 	  * has been removed */
 	public StatementSequence removeHead() {
-		if (stmtSeq.size() > 1) {
-			LinkedList<Unit> newStmtSeq = new LinkedList<>(stmtSeq);
-			newStmtSeq.removeFirst();
-			return createInstance(newStmtSeq);
+		if (length > 1) {
+			return rest;
 		} else {
 			return epsilon();
 		}
 	}
-	
+
 	public boolean contains(Unit stmt) {
-		return stmtSeq.contains(stmt);
+		int stmtId = numbering.getIdIfPresent(stmt);
+		if (stmtId >= 0) {
+			for (StatementSequence s = this; s.length > 0; s = s.rest) {
+				if (s.headId == stmtId) {
+					return true;
+				}
+			}
+		}
+		return false;
 	}
-	
+
 	public int length() {
-		return stmtSeq.size();
+		return length;
 	}
-	
+
 	public boolean isEpsilon() {
 		return this == epsilon();
 	}
-	
+
+	@Override
+	public Iterator<Unit> iterator() {
+		return new Iterator<Unit>() {
+			private StatementSequence next = StatementSequence.this;
+
+			@Override
+			public boolean hasNext() {
+				return next.length > 0;
+			}
+
+			@Override
+			public Unit next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				Unit u = numbering.getUnit(next.headId);
+				next = next.rest;
+				return u;
+			}
+		};
+	}
+
 	@Override
 	public int hashCode() {
 		return hashCode;
 	}
-	
+
 	@Override
 	public boolean equals(Object obj) {
 		if (this == obj) {
 			return true;
 		}
-		if (this != epsilon() && // ensure that epsilon and zero value are not equivalent
+		if (this != epsilon() && obj != epsilon() && // ensure that epsilon and zero value are not equivalent
 				obj instanceof StatementSequence) {
 			StatementSequence anoSeq = (StatementSequence) obj;
+			if (id >= 0 && anoSeq.id >= 0) {
+				// hash-consed sequences are equal iff they are identical
+				return false;
+			}
+			// the rests are always interned
 			return hashCode == anoSeq.hashCode // quickly fail
-					&& stmtSeq.equals(anoSeq.stmtSeq);
+					&& length == anoSeq.length
+					&& headId == anoSeq.headId
+					&& rest == anoSeq.rest;
 		}
 		return false;
 	}
-	
+
 	@Override
 	public String toString() {
 		if (isEpsilon()) {
@@ -109,15 +191,115 @@ public class StatementSequence {
 		} else {
 			return getClass().getSimpleName() + "@: "
 					+ length() + " "
-					+ stmtSeq.toString();
+					+ getStmtSeq().toString();
 		}
 	}
-	
+
+	/** Return the interned sequence holding the given units */
+	public static StatementSequence valueOf(List<Unit> stmtSeq) {
+		StatementSequence seq = epsilon();
+		for (ListIterator<Unit> it = stmtSeq.listIterator(stmtSeq.size()); it.hasPrevious(); ) {
+			seq = intern(numbering.getId(it.previous()), seq);
+		}
+		return seq;
+	}
+
 	static StatementSequence epsilon() {
 		return epsilon;
 	}
-	
+
 	static StatementSequence createInstance(LinkedList<Unit> newStmtSeq) {
-		return new StatementSequence(newStmtSeq);
+		return valueOf(newStmtSeq);
+	}
+
+	int getHeadId() {
+		if (length == 0) {
+			throw new NoSuchElementException();
+		}
+		return headId;
+	}
+
+	int getTailId() {
+		if (length == 0) {
+			throw new NoSuchElementException();
+		}
+		return lastId;
+	}
+
+	/** Dense ID of an interned sequence, -1 for the others */
+	int getId() {
+		return id;
+	}
+
+	StatementSequence addHead(int stmtId) {
+		return intern(stmtId, canonical());
+	}
+
+	/** The interned sequence equal to this one (epsilon for empty ones) */
+	StatementSequence canonical() {
+		if (id >= 0) {
+			return this;
+		} else if (length == 0) {
+			return epsilon();
+		} else {
+			return intern(headId, rest);
+		}
+	}
+
+	private static StatementSequence intern(int headId, StatementSequence rest) {
+		StatementSequence seq = lookup(internTable, headId, rest);
+		if (seq == null) {
+			synchronized (StatementSequence.class) {
+				StatementSequence[] table = internTable;
+				seq = lookup(table, headId, rest);
+				if (seq == null) {
+					seq = new StatementSequence(headId, rest, ++internCount);
+					if (2 * internCount > table.length) {
+						table = rehash(table);
+					}
+					insert(table, seq);
+					internTable = table;
+				}
+			}
+		}
+		return seq;
+	}
+
+	private static StatementSequence lookup(StatementSequence[] table,
+			int headId, StatementSequence rest) {
+		int mask = table.length - 1;
+		for (int i = slot(headId, rest.id) & mask; ; i = (i + 1) & mask) {
+			StatementSequence seq = table[i];
+			if (seq == null) {
+				return null;
+			} else if (seq.headId == headId && seq.rest == rest) {
+				return seq;
+			}
+		}
+	}
+
+	private static void insert(StatementSequence[] table, StatementSequence seq) {
+		int mask = table.length - 1;
+		int i = slot(seq.headId, seq.rest.id) & mask;
+		while (table[i] != null) {
+			i = (i + 1) & mask;
+		}
+		table[i] = seq;
+	}
+
+	private static StatementSequence[] rehash(StatementSequence[] table) {
+		StatementSequence[] newTable = new StatementSequence[2 * table.length];
+		for (StatementSequence seq : table) {
+			if (seq != null) {
+				insert(newTable, seq);
+			}
+		}
+		return newTable;
+	}
+
+	private static int slot(int headId, int restId) {
+		long key = ((long) headId << 32) | (restId & 0xffffffffL);
+		key *= 0x9E3779B97F4A7C15L;
+		return (int) (key ^ (key >>> 32));
 	}
 }
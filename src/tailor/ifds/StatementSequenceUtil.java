@@ -18,84 +18,105 @@
 
 package tailor.ifds;
 
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.Map;
 import java.util.Set;
 
 import soot.Unit;
+import tailor.icfg.UnitNumbering;
 
 public class StatementSequenceUtil {
 	
-	private Set<Unit> UnitSet;
-	private Set<Unit> headSet;
-	private Set<Unit> tailSet;
-	private Map<Unit, Set<LinkedList<Unit>>> UnitToFollowSet;
-	private Map<Unit, Set<Unit>> extension;
+	private final UnitNumbering numbering = UnitNumbering.INSTANCE;
 	
-	public StatementSequenceUtil(Set<Unit> UnitSet,
-			Set<Unit> headSet,
-			Set<Unit> tailSet,
-			Map<Unit, Set<LinkedList<Unit>>> UnitToFollowSet) {
-		this.UnitSet = UnitSet;
-		this.headSet = headSet;
-		this.tailSet = tailSet;
-		this.UnitToFollowSet = UnitToFollowSet;
+	private SCAutomaton automaton;
+	// sorted (head ID, extension unit ID) pairs, see pack()
+	private long[] extension;
+	
+	public StatementSequenceUtil(SCAutomaton automaton) {
+		this.automaton = automaton;
 		setExtension(Collections.emptyMap());
 	}
 	
+	public SCAutomaton getAutomaton() {
+		return automaton;
+	}
+	
 	public void setExtension(Map<Unit, Set<Unit>> extension) {
-		this.extension = extension;
+		this.extension = extension.entrySet()
+				.stream()
+				.flatMapToLong(e -> {
+					int headId = numbering.getId(e.getKey());
+					return e.getValue()
+							.stream()
+							.mapToLong(ext -> pack(headId, numbering.getId(ext)));
+				})
+				.sorted()
+				.toArray();
 	}
 	
 	public boolean canAddHead(Unit Unit, StatementSequence fact) {
-		Set<LinkedList<Unit>> followSet = UnitToFollowSet.get(Unit);
-		if (followSet != null) {
-			return followSet.contains(fact.getStmtSeq()); 
-		}
-		return false;
+		return fact.length() > 0 && addHeadAlongSC(Unit, fact) != null;
+	}
+	
+	/**
+	 * Return the fact obtained by adding `Unit` as the head of `fact` if it
+	 * is still a suffix of the SC, or null otherwise. The zero value is
+	 * treated as the empty suffix, so that the result for it is non-null
+	 * iff `Unit` is a tail.
+	 */
+	public StatementSequence addHeadAlongSC(Unit Unit, StatementSequence fact) {
+		int state = automaton.next(automaton.stateOf(fact), automaton.symbolOf(Unit));
+		return state >= 0 ? automaton.getFact(state) : null;
 	}
 	
 	public boolean canExtend(Unit apiCall, StatementSequence fact) {
-		if (!fact.getStmtSeq().isEmpty()) {
-			if (fact.getStmtSeq().contains(apiCall)) {
+		if (fact.length() > 0) {
+			if (fact.contains(apiCall)) {
 				return false;
 			}
 			
-			Unit head = fact.getHead();
-			if (isUnitOfSC(head) && !isSCHead(head)) {
+			int head = fact.getHeadId();
+			if (automaton.symbolOf(head) >= 0 && !automaton.isSCHead(head)) {
 				return false;
 			}
 			
-			Set<Unit> ext = extension.get(head);
-			if (ext != null) {
-				return ext.contains(apiCall);
-			}
+			int apiCallId = numbering.getIdIfPresent(apiCall);
+			return apiCallId >= 0 && contains(extension, head, apiCallId);
 		}
 		return false;
 	}
 	
 	public boolean canRemoveHead(Unit Unit, StatementSequence fact) {
-		if (fact.getStmtSeq().isEmpty()) {
+		if (fact.length() == 0) {
 			return false;
 		} else {
-			return fact.getStmtSeq().getFirst().equals(Unit);
+			return fact.getHeadId() == numbering.getIdIfPresent(Unit);
 		}
 	}
 	
 	public boolean isUnitOfSC(Unit Unit) {
-		return UnitSet.contains(Unit);
+		return automaton.isUnitOfSC(Unit);
 	}
 	
 	public boolean isSCHead(Unit Unit) {
-		return headSet.contains(Unit);
+		return automaton.isSCHead(Unit);
 	}
 	
 	public boolean isTail(Unit Unit) {
-		return tailSet.contains(Unit);
+		return automaton.isTail(Unit);
 	}
 	
 	public StatementSequence createZeroValue() {
 		return new StatementSequence();
 	}
+	
+	private static long pack(int hi, int lo) {
+		return ((long) hi << 32) | (lo & 0xffffffffL);
+	}
+	
+	private static boolean contains(long[] pairs, int hi, int lo) {
+		return Arrays.binarySearch(pairs, pack(hi, lo)) >= 0;
+	}
 }
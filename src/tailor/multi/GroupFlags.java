@@ -0,0 +1,54 @@
+/* Tailor - Program Tailoring: Slicing by Sequential Criteria
+ *
+ * Copyright (C) 2016 Yue Li, Tian Tan, Jingling Xue
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package tailor.multi;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * A predicate over the tail groups which is evaluated at most once per
+ * group, for flow functions (cached by the solver) whose outcome depends
+ * on the blocked ICFG of the group of the fact.
+ *
+ * Concurrent evaluations of the same group are harmless, as they
+ * compute the same value.
+ */
+class GroupFlags {
+
+	private static final byte UNKNOWN = 0, TRUE = 1, FALSE = 2;
+
+	private final List<TailGroup> groups;
+	private final Predicate<TailGroup> predicate;
+	private final byte[] flags;
+
+	GroupFlags(List<TailGroup> groups, Predicate<TailGroup> predicate) {
+		this.groups = groups;
+		this.predicate = predicate;
+		this.flags = new byte[groups.size()];
+	}
+
+	boolean get(int group) {
+		byte flag = flags[group];
+		if (flag == UNKNOWN) {
+			flag = predicate.test(groups.get(group)) ? TRUE : FALSE;
+			flags[group] = flag;
+		}
+		return flag == TRUE;
+	}
+}
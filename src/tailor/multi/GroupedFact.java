@@ -0,0 +1,102 @@
+/* Tailor - Program Tailoring: Slicing by Sequential Criteria
+ *
+ * Copyright (C) 2016 Yue Li, Tian Tan, Jingling Xue
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package tailor.multi;
+
+import tailor.ifds.StatementSequence;
+
+/**
+ * A statement sequence tagged with the index of the tail group
+ * (see {@link TailGroup}) it originates from.
+ *
+ * Each group has a root fact, which plays the role of the zero value
+ * of the single-group analysis: it is seeded at the entry points, is
+ * never killed by the flow functions, and is not part of the results.
+ */
+public class GroupedFact {
+
+	private static final StatementSequence ROOT = new StatementSequence();
+
+	// the zero value of the solver, which belongs to no group
+	public static final GroupedFact ZERO = new GroupedFact(-1, ROOT);
+
+	private final int group;
+	private final StatementSequence seq;
+	private final int hashCode;
+
+	public GroupedFact(int group, StatementSequence seq) {
+		this.group = group;
+		this.seq = seq;
+		this.hashCode = 31 * group + seq.hashCode();
+	}
+
+	public static GroupedFact root(int group) {
+		return new GroupedFact(group, ROOT);
+	}
+
+	public int getGroup() {
+		return group;
+	}
+
+	public StatementSequence getSeq() {
+		return seq;
+	}
+
+	public boolean isRoot() {
+		return seq == ROOT;
+	}
+
+	public boolean isZero() {
+		return group < 0;
+	}
+
+	/** Return the fact of the same group holding `newSeq` */
+	public GroupedFact with(StatementSequence newSeq) {
+		return new GroupedFact(group, newSeq);
+	}
+
+	@Override
+	public int hashCode() {
+		return hashCode;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj instanceof GroupedFact) {
+			GroupedFact anoFact = (GroupedFact) obj;
+			return group == anoFact.group
+					&& (seq == anoFact.seq
+						|| (!isRoot() && !anoFact.isRoot() && seq.equals(anoFact.seq)));
+		}
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		if (isZero()) {
+			return getClass().getSimpleName() + "@: Zero";
+		} else if (isRoot()) {
+			return getClass().getSimpleName() + "@" + group + ": Root";
+		} else {
+			return getClass().getSimpleName() + "@" + group + ": " + seq;
+		}
+	}
+}
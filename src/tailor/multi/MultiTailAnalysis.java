@@ -0,0 +1,212 @@
+/* Tailor - Program Tailoring: Slicing by Sequential Criteria
+ *
+ * Copyright (C) 2016 Yue Li, Tian Tan, Jingling Xue
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package tailor.multi;
+
+import heros.solver.Pair;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import soot.Scene;
+import soot.SootMethod;
+import soot.Unit;
+import soot.jimple.toolkits.ide.JimpleIFDSSolver;
+import tailor.Analysis;
+import tailor.AnalysisContext;
+import tailor.Driver;
+import tailor.icfg.BackwardsICFG;
+import tailor.icfg.BiDiICFG;
+import tailor.icfg.ICFG;
+import tailor.icfg.UnitNumbering;
+import tailor.icfg.util.ConcurrentBitSet;
+import tailor.ifds.StatementSequence;
+
+/**
+ * Analyse the SCs of all tail groups by one bottom-up and one top-down
+ * solve, instead of one Analysis (i.e., two solves) per group. The
+ * results of each group are the same as those of its own Analysis.
+ *
+ * The blocked ICFGs of each group are still built (on top of the shared
+ * caches of the AnalysisContext), but only to answer the per-group
+ * blocking queries of the flow functions.
+ */
+public class MultiTailAnalysis {
+
+	private final List<TailGroup> groups = new ArrayList<>();
+	private final Map<Unit, TailGroup> groupOfTail = new LinkedHashMap<>();
+	private final boolean extendSC;
+	private final int numThreads;
+
+	private BackwardsICFG bwICFG;
+	private MultiTailICFG fwICFG;
+	// the union of the bottom-up reachable units of all groups
+	private final ConcurrentBitSet bottomUpReachable = new ConcurrentBitSet();
+	private JimpleIFDSSolver<GroupedFact, ICFG<Unit, SootMethod>> buSolver, tdSolver;
+
+	public MultiTailAnalysis(AnalysisContext context,
+			Map<Unit, Set<StatementSequence>> facts,
+			boolean retainCycle,
+			boolean extendSC,
+			int numThreads) {
+		this.extendSC = extendSC;
+		this.numThreads = numThreads;
+		facts.forEach((tail, sc) -> {
+			TailGroup group = new TailGroup(groups.size(), tail, sc);
+			group.buildICFG(context, retainCycle, extendSC);
+			groups.add(group);
+			groupOfTail.put(tail, group);
+		});
+
+		List<BiDiICFG<Unit, SootMethod>> bwICFGs = new ArrayList<>();
+		List<BiDiICFG<Unit, SootMethod>> fwICFGs = new ArrayList<>();
+		groups.forEach(g -> {
+			bwICFGs.add(g.getBackwardICFG().getForwardInterproceduralCFG());
+			fwICFGs.add(g.getForwardICFG());
+		});
+		Map<Pair<Unit, Unit>, Set<Unit>> intraCycles = retainCycle
+				? Collections.emptyMap()
+				: context.getIntraCycles();
+		// the backward union is built on the forward views of the backward
+		// blocked ICFGs, as BackwardsICFG inverts the edges itself
+		bwICFG = new BackwardsICFG(new MultiTailICFG(context.getICFG(), intraCycles,
+				bwICFGs, null));
+		fwICFG = new MultiTailICFG(context.getICFG(), intraCycles,
+				fwICFGs, bottomUpReachable);
+	}
+
+	public void analyse() {
+		SootMethod mainMethod = Scene.v().getMainMethod();
+		Set<Unit> bwInitialUnits = new HashSet<>(bwICFG.getStartPointsOf(mainMethod));
+
+		System.out.println("  SC-Based Data-Flow Analysis (SCDFA) of "
+				+ groups.size() + " tail group(s) starts ...");
+		long beginTime = System.currentTimeMillis();
+
+		System.out.println("    Running Bottom-Up pass ...");
+		MultiTailBottomUpTailor buTailor = new MultiTailBottomUpTailor(
+				bwICFG, groups, bwInitialUnits, extendSC);
+		buTailor.setNumThreads(numThreads);
+		buSolver = new JimpleIFDSSolver<>(buTailor);
+		buSolver.solve();
+		markBottomUpReachable();
+
+		Map<Integer, Set<StatementSequence>> tdInitialSeqs = new LinkedHashMap<>();
+		groups.forEach(g -> tdInitialSeqs.put(g.getIndex(), new HashSet<>()));
+		bwICFG.getEndPointsOf(mainMethod).forEach(u ->
+			buSolver.ifdsResultsAt(u).forEach(fact -> {
+				if (!fact.isRoot()) {
+					tdInitialSeqs.get(fact.getGroup()).add(fact.getSeq());
+				}
+			}));
+		Set<GroupedFact> tdInitialFacts = new HashSet<>();
+		groups.forEach(g -> {
+			Set<StatementSequence> seqs = tdInitialSeqs.get(g.getIndex());
+			if (extendSC) {
+				Analysis.removeUselessBottomUpFacts(seqs, g.getSC());
+			} else {
+				seqs.retainAll(g.getSC());
+			}
+			seqs.forEach(seq -> tdInitialFacts.add(new GroupedFact(g.getIndex(), seq)));
+		});
+
+		System.out.println("    Running Top-Down pass ...");
+		MultiTailTopDownTailor tdTailor = new MultiTailTopDownTailor(
+				fwICFG, groups, tdInitialFacts, extendSC);
+		tdTailor.setNumThreads(numThreads);
+		tdSolver = new JimpleIFDSSolver<>(tdTailor);
+		tdSolver.solve();
+
+		long endTime = System.currentTimeMillis();
+		System.out.println("  SCDFA has run for: "
+				+ Driver.costTimeToString(beginTime, endTime));
+	}
+
+	/**
+	 * Mark the units holding bottom-up facts, per group, for filtering
+	 * the top-down pass (see TopDownBlockedJimpleICFG).
+	 */
+	private void markBottomUpReachable() {
+		UnitNumbering numbering = UnitNumbering.INSTANCE;
+		bwICFG.allNodes().forEach(u -> {
+			int id = numbering.getId(u);
+			buSolver.ifdsResultsAt(u).forEach(fact -> {
+				if (!fact.isRoot()) {
+					groups.get(fact.getGroup()).getBottomUpReachable().set(id);
+					bottomUpReachable.set(id);
+				}
+			});
+		});
+	}
+
+	public Collection<Unit> getResultsOfMethod(TailGroup group, SootMethod m) {
+		Collection<Unit> res = new ArrayList<>();
+		if (m.hasActiveBody()) {
+			ConcurrentBitSet reachable = group.getBottomUpReachable();
+			// match
+			for (Unit u : m.getActiveBody().getUnits()) {
+				Set<GroupedFact> buRes = buSolver.ifdsResultsAt(u);
+				Set<GroupedFact> tdRes = tdSolver.ifdsResultsAt(u);
+				for (GroupedFact tdFact : tdRes) {
+					if (tdFact.getGroup() != group.getIndex()) {
+						continue;
+					}
+					if (tdFact.getSeq().isEpsilon()
+							&& reachable.get(UnitNumbering.INSTANCE.getId(u))) {
+						res.add(u);
+						break;
+					} else if (buRes.contains(tdFact)) {
+						res.add(u);
+						break;
+					}
+				}
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * Return the results of the group of `tail`, as
+	 * {@link Analysis#getResultMap()} does for a single group.
+	 */
+	public Map<SootMethod, Collection<Unit>> getResultMap(Unit tail) {
+		if (buSolver != null && tdSolver != null) {
+			TailGroup group = groupOfTail.get(tail);
+			Map<SootMethod, Collection<Unit>> results = new LinkedHashMap<>();
+			fwICFG.allMethods().forEach(m -> {
+				Collection<Unit> res = getResultsOfMethod(group, m);
+				if (!res.isEmpty()) {
+					results.put(m, res);
+				}
+			});
+			return results;
+		} else {
+			throw new RuntimeException("Solvers are not initialed, please call analyse().");
+		}
+	}
+
+	public List<TailGroup> getGroups() {
+		return groups;
+	}
+}
@@ -0,0 +1,184 @@
+/* Tailor - Program Tailoring: Slicing by Sequential Criteria
+ *
+ * Copyright (C) 2016 Yue Li, Tian Tan, Jingling Xue
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package tailor.multi;
+
+import static heros.TwoElementSet.twoElementSet;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singleton;
+import heros.FlowFunction;
+import heros.FlowFunctions;
+import heros.flowfunc.Identity;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import soot.SootMethod;
+import soot.Unit;
+import soot.jimple.toolkits.ide.DefaultJimpleIFDSTabulationProblem;
+import tailor.icfg.BackwardsICFG;
+import tailor.icfg.ICFG;
+import tailor.ifds.StatementSequence;
+import tailor.ifds.StatementSequenceUtil;
+
+/**
+ * The bottom-up pass of all tail groups at once, see IFDSBottomUpTailor
+ * and IFDSExtensionBottomUpTailor. The facts of a group flow exactly as
+ * they would in the backward blocked ICFG of the group, whose root
+ * fact stands for the zero value.
+ */
+public class MultiTailBottomUpTailor
+		extends
+		DefaultJimpleIFDSTabulationProblem<GroupedFact, ICFG<Unit, SootMethod>> {
+
+	protected List<TailGroup> groups;
+	protected Set<Unit> initialUnits; // entry points of Bottom-Up analysis
+	protected boolean extendSC;
+	protected int numThreads = Runtime.getRuntime().availableProcessors();
+
+	public MultiTailBottomUpTailor(BackwardsICFG icfg,
+			List<TailGroup> groups,
+			Set<Unit> initialUnits,
+			boolean extendSC) {
+		super(icfg);
+		this.groups = groups;
+		this.initialUnits = initialUnits;
+		this.extendSC = extendSC;
+	}
+
+	@Override
+	public int numThreads() {
+		return numThreads;
+	}
+
+	public void setNumThreads(int numThreads) {
+		this.numThreads = numThreads;
+	}
+
+	@Override
+	public Map<Unit, Set<GroupedFact>> initialSeeds() {
+		Set<GroupedFact> roots = new HashSet<>();
+		groups.forEach(g -> roots.add(GroupedFact.root(g.getIndex())));
+		Map<Unit, Set<GroupedFact>> res = new HashMap<Unit, Set<GroupedFact>>();
+		for (Unit u : initialUnits) {
+			res.put(u, roots);
+		}
+		return res;
+	}
+
+	protected class MultiTailBottomUpFlowFunctions implements FlowFunctions<Unit, GroupedFact, SootMethod> {
+		@Override
+		public FlowFunction<GroupedFact> getNormalFlowFunction(
+				Unit curr, Unit succ) {
+			return Identity.v();
+		}
+
+		@Override
+		public FlowFunction<GroupedFact> getCallFlowFunction(
+				Unit callStmt, SootMethod destinationMethod) {
+			GroupFlags isCallee = new GroupFlags(groups, g ->
+					g.getBackwardICFG()
+						.getCalleesOfCallAt(callStmt)
+						.contains(destinationMethod));
+			return new FlowFunction<GroupedFact>() {
+				@Override
+				public Set<GroupedFact> computeTargets(GroupedFact source) {
+					if (!source.isZero() && isCallee.get(source.getGroup())) {
+						return singleton(source);
+					}
+					return emptySet();
+				}
+			};
+		}
+
+		@Override
+		public FlowFunction<GroupedFact> getReturnFlowFunction(
+				Unit callSite, SootMethod calleeMethod, Unit exitStmt,
+				Unit returnSite) {
+			// NOTICE: `callSite` is the true return site, and
+			// `returnSite` is the true call site.
+			GroupFlags isCaller = new GroupFlags(groups, g ->
+					g.getBackwardICFG()
+						.getForwardInterproceduralCFG()
+						.getCallersOf(calleeMethod)
+						.contains(returnSite));
+			return new FlowFunction<GroupedFact>() {
+				@Override
+				public Set<GroupedFact> computeTargets(GroupedFact source) {
+					if (source.isZero()) {
+						return emptySet();
+					} else if (source.isRoot()) {
+						// the zero value is never killed
+						return singleton(source);
+					} else if (isCaller.get(source.getGroup())) {
+						// When the ICFG is inverted, the facts should flow to
+						// only feasible `return site`.
+						StatementSequenceUtil util = getUtil(source);
+						if (extendSC && util.canExtend(returnSite, source.getSeq())) {
+							return twoElementSet(source,
+									source.with(source.getSeq().addHead(returnSite)));
+						}
+						return singleton(source);
+					}
+					return emptySet();
+				}
+			};
+		}
+
+		@Override
+		public FlowFunction<GroupedFact> getCallToReturnFlowFunction(
+				Unit callSite, Unit returnSite) {
+			// NOTICE: `callSite` is the true return site, and
+			// `returnSite` is the true call site.
+			return new FlowFunction<GroupedFact>() {
+				@Override
+				public Set<GroupedFact> computeTargets(GroupedFact source) {
+					if (source.isZero()) {
+						return emptySet();
+					}
+					StatementSequenceUtil util = getUtil(source);
+					if (util.isUnitOfSC(returnSite)) {
+						// from the root fact it succeeds iff `returnSite` is a tail
+						StatementSequence target = util.addHeadAlongSC(returnSite, source.getSeq());
+						if (target != null) {
+							return twoElementSet(source, source.with(target));
+						}
+					}
+					return singleton(source);
+				}
+			};
+		}
+	}
+
+	@Override
+	protected FlowFunctions<Unit, GroupedFact, SootMethod> createFlowFunctionsFactory() {
+		return new MultiTailBottomUpFlowFunctions();
+	}
+
+	@Override
+	protected GroupedFact createZeroValue() {
+		return GroupedFact.ZERO;
+	}
+
+	protected StatementSequenceUtil getUtil(GroupedFact fact) {
+		return groups.get(fact.getGroup()).getUtil();
+	}
+}
@@ -0,0 +1,115 @@
+/* Tailor - Program Tailoring: Slicing by Sequential Criteria
+ *
+ * Copyright (C) 2016 Yue Li, Tian Tan, Jingling Xue
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package tailor.multi;
+
+import heros.SynchronizedBy;
+import heros.solver.IDESolver;
+import heros.solver.Pair;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import soot.SootMethod;
+import soot.Unit;
+import tailor.icfg.BiDiICFG;
+import tailor.icfg.BlockedJimpleBasedICFG;
+import tailor.icfg.JimpleBasedICFG;
+import tailor.icfg.util.ConcurrentBitSet;
+
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
+/**
+ * The ICFG solved on by the multi-tail analysis. Its call edges are the
+ * union of the call edges of the blocked ICFGs of all tail groups, so
+ * that every group can reach what it reaches in its own ICFG; the flow
+ * functions kill the facts of a group on the edges that the group blocks.
+ *
+ * The intra-procedural cycles are the same for all groups, hence they
+ * are blocked here. Optionally, the successors are restricted to the
+ * units in `reachable`, the bottom-up reachable units of all groups.
+ */
+public class MultiTailICFG extends BlockedJimpleBasedICFG {
+
+	private final ConcurrentBitSet reachable;
+
+	@SynchronizedBy("by use of synchronized LoadingCache class")
+	private final LoadingCache<Unit, Collection<SootMethod>> unionCallees;
+
+	@SynchronizedBy("by use of synchronized LoadingCache class")
+	private final LoadingCache<SootMethod, Collection<Unit>> unionCallers;
+
+	public MultiTailICFG(JimpleBasedICFG base,
+			Map<Pair<Unit, Unit>, Set<Unit>> intraCycles,
+			List<? extends BiDiICFG<Unit, SootMethod>> groupICFGs,
+			ConcurrentBitSet reachable) {
+		super(base, Collections.emptySet(), intraCycles, Collections.emptyMap());
+		this.reachable = reachable;
+		this.unionCallees = IDESolver.DEFAULT_CACHE_BUILDER.build(
+				new CacheLoader<Unit, Collection<SootMethod>>() {
+					@Override
+					public Collection<SootMethod> load(Unit u) throws Exception {
+						return union(groupICFGs, g -> g.getCalleesOfCallAt(u));
+					}
+				});
+		this.unionCallers = IDESolver.DEFAULT_CACHE_BUILDER.build(
+				new CacheLoader<SootMethod, Collection<Unit>>() {
+					@Override
+					public Collection<Unit> load(SootMethod m) throws Exception {
+						return union(groupICFGs, g -> g.getCallersOf(m));
+					}
+				});
+	}
+
+	private static <E> Collection<E> union(
+			List<? extends BiDiICFG<Unit, SootMethod>> groupICFGs,
+			Function<BiDiICFG<Unit, SootMethod>, Collection<E>> getter) {
+		Set<E> res = new LinkedHashSet<>();
+		groupICFGs.forEach(g -> res.addAll(getter.apply(g)));
+		return res.isEmpty() ? Collections.emptySet() : new ArrayList<>(res);
+	}
+
+	@Override
+	public List<Unit> getSuccsOf(Unit u) {
+		if (reachable == null) {
+			return super.getSuccsOf(u);
+		}
+		return super.getSuccsOf(u)
+				.stream()
+				.filter(unit -> reachable.get(getUnitId(unit)))
+				.collect(Collectors.toList());
+	}
+
+	@Override
+	public Collection<SootMethod> getCalleesOfCallAt(Unit u) {
+		return unionCallees.getUnchecked(u);
+	}
+
+	@Override
+	public Collection<Unit> getCallersOf(SootMethod m) {
+		return unionCallers.getUnchecked(m);
+	}
+}
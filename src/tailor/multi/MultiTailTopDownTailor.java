@@ -0,0 +1,191 @@
+/* Tailor - Program Tailoring: Slicing by Sequential Criteria
+ *
+ * Copyright (C) 2016 Yue Li, Tian Tan, Jingling Xue
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package tailor.multi;
+
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singleton;
+import heros.FlowFunction;
+import heros.FlowFunctions;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import soot.Scene;
+import soot.SootMethod;
+import soot.Unit;
+import soot.jimple.toolkits.ide.DefaultJimpleIFDSTabulationProblem;
+import tailor.icfg.ICFG;
+import tailor.icfg.UnitNumbering;
+import tailor.ifds.StatementSequenceUtil;
+
+/**
+ * The top-down pass of all tail groups at once, see IFDSTopDownTailor
+ * and IFDSExtensionTopDownTailor. A fact of a group only flows to the
+ * units reached by the bottom-up facts of the group, and only through
+ * the call edges of the blocked ICFG of the group.
+ */
+public class MultiTailTopDownTailor
+	extends
+	DefaultJimpleIFDSTabulationProblem<GroupedFact, ICFG<Unit, SootMethod>> {
+
+	protected List<TailGroup> groups;
+	protected Set<GroupedFact> initialFacts; // initial facts at entry point
+	protected boolean extendSC;
+	protected int numThreads = Runtime.getRuntime().availableProcessors();
+
+	public MultiTailTopDownTailor(ICFG<Unit, SootMethod> icfg,
+			List<TailGroup> groups,
+			Set<GroupedFact> initialFacts,
+			boolean extendSC) {
+		super(icfg);
+		this.groups = groups;
+		this.initialFacts = initialFacts;
+		this.extendSC = extendSC;
+	}
+
+	@Override
+	public int numThreads() {
+		return numThreads;
+	}
+
+	public void setNumThreads(int numThreads) {
+		this.numThreads = numThreads;
+	}
+
+	@Override
+	public Map<Unit, Set<GroupedFact>> initialSeeds() {
+		initialFacts.add(zeroValue());
+		Map<Unit, Set<GroupedFact>> res =
+				new HashMap<Unit, Set<GroupedFact>>();
+		res.put(Scene.v()
+				.getMainMethod()
+				.getActiveBody()
+				.getUnits()
+				.getFirst(), initialFacts);
+		return res;
+	}
+
+	protected class MultiTailTopDownFlowFunctions implements FlowFunctions<Unit, GroupedFact, SootMethod> {
+		@Override
+		public FlowFunction<GroupedFact> getNormalFlowFunction(
+				Unit curr, Unit succ) {
+			return reachTo(succ);
+		}
+
+		@Override
+		public FlowFunction<GroupedFact> getCallFlowFunction(
+				Unit callStmt, SootMethod destinationMethod) {
+			GroupFlags isCallee = new GroupFlags(groups, g ->
+					g.getForwardICFG()
+						.getCalleesOfCallAt(callStmt)
+						.contains(destinationMethod));
+			return new FlowFunction<GroupedFact>() {
+				@Override
+				public Set<GroupedFact> computeTargets(GroupedFact source) {
+					if (source.isZero() || !isCallee.get(source.getGroup())) {
+						return emptySet();
+					}
+					if (extendSC && getUtil(source).canRemoveHead(callStmt, source.getSeq())) {
+						return singleton(source.with(source.getSeq().removeHead()));
+					}
+					return singleton(source);
+				}
+			};
+		}
+
+		@Override
+		public FlowFunction<GroupedFact> getReturnFlowFunction(
+				Unit callSite, SootMethod calleeMethod, Unit exitStmt,
+				Unit returnSite) {
+			return reachTo(returnSite);
+		}
+
+		@Override
+		public FlowFunction<GroupedFact> getCallToReturnFlowFunction(
+				Unit callSite, Unit returnSite) {
+			int returnSiteId = UnitNumbering.INSTANCE.getId(returnSite);
+			// no callees handling, see IFDSTopDownTailor
+			GroupFlags shouldKill = new GroupFlags(groups, g -> {
+				for (SootMethod callee : g.getForwardICFG().getCalleesOfCallAt(callSite)) {
+					if (callee.hasActiveBody() && !callee.getName().equals("<clinit>")) {
+						return true;
+					}
+				}
+				return false;
+			});
+			return new FlowFunction<GroupedFact>() {
+				@Override
+				public Set<GroupedFact> computeTargets(GroupedFact source) {
+					if (source.isZero() || !isBottomUpReachable(source, returnSiteId)) {
+						return emptySet();
+					}
+					StatementSequenceUtil util = getUtil(source);
+					if (util.isUnitOfSC(callSite)) {
+						if (util.canRemoveHead(callSite, source.getSeq())) {
+							return singleton(source.with(source.getSeq().removeHead()));
+						} else {
+							return singleton(source);
+						}
+					} else if (shouldKill.get(source.getGroup())) {
+						return emptySet();
+					} else {
+						return singleton(source);
+					}
+				}
+			};
+		}
+
+		/**
+		 * The facts of the groups whose bottom-up facts reach `u`,
+		 * as TopDownBlockedJimpleICFG does for a single group.
+		 */
+		private FlowFunction<GroupedFact> reachTo(Unit u) {
+			int id = UnitNumbering.INSTANCE.getId(u);
+			return new FlowFunction<GroupedFact>() {
+				@Override
+				public Set<GroupedFact> computeTargets(GroupedFact source) {
+					if (!source.isZero() && isBottomUpReachable(source, id)) {
+						return singleton(source);
+					}
+					return emptySet();
+				}
+			};
+		}
+	}
+
+	@Override
+	protected FlowFunctions<Unit, GroupedFact, SootMethod> createFlowFunctionsFactory() {
+		return new MultiTailTopDownFlowFunctions();
+	}
+
+	@Override
+	protected GroupedFact createZeroValue() {
+		return GroupedFact.ZERO;
+	}
+
+	protected StatementSequenceUtil getUtil(GroupedFact fact) {
+		return groups.get(fact.getGroup()).getUtil();
+	}
+
+	protected boolean isBottomUpReachable(GroupedFact fact, int unitId) {
+		return groups.get(fact.getGroup()).getBottomUpReachable().get(unitId);
+	}
+}
@@ -0,0 +1,150 @@
+/* Tailor - Program Tailoring: Slicing by Sequential Criteria
+ *
+ * Copyright (C) 2016 Yue Li, Tian Tan, Jingling Xue
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package tailor.multi;
+
+import heros.solver.Pair;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import soot.Scene;
+import soot.SootMethod;
+import soot.Unit;
+import tailor.AnalysisContext;
+import tailor.extension.ExtensionFinder;
+import tailor.extension.tagger.CycleTagger;
+import tailor.extension.tagger.CycleTagger.CycleMarks;
+import tailor.icfg.BackwardsICFG;
+import tailor.icfg.BlockedJimpleBasedICFG;
+import tailor.icfg.BottomUpBlockedJimpleICFG;
+import tailor.icfg.JimpleBasedICFG;
+import tailor.icfg.TopDownBlockedJimpleICFG;
+import tailor.icfg.util.ConcurrentBitSet;
+import tailor.icfg.util.InterCycleFinder;
+import tailor.ifds.SCAutomaton;
+import tailor.ifds.StatementSequence;
+import tailor.ifds.StatementSequenceUtil;
+
+/**
+ * The SC-dependent state of one tail group in the multi-tail analysis,
+ * i.e., everything that Analysis builds for a single group. The blocked
+ * ICFGs of the group are not solved on; the flow functions consult them
+ * to apply the blocking of the group to its own facts.
+ */
+public class TailGroup {
+
+	private final int index;
+	private final Unit tail;
+	private final Set<StatementSequence> sc;
+	private final Set<Unit> specUnits;
+	private final StatementSequenceUtil util;
+
+	private BlockedJimpleBasedICFG fwICFG;
+	private BackwardsICFG bwICFG;
+
+	// IDs of the units holding bottom-up facts of this group
+	private final ConcurrentBitSet bottomUpReachable = new ConcurrentBitSet();
+
+	public TailGroup(int index, Unit tail, Set<StatementSequence> sc) {
+		this.index = index;
+		this.tail = tail;
+		this.sc = sc;
+		Set<Unit> apiCallSet = new HashSet<>();
+		Set<Unit> tailSet = new HashSet<>();
+		sc.forEach(seq -> {
+			seq.forEach(apiCallSet::add);
+			tailSet.add(seq.getTail());
+		});
+		this.util = new StatementSequenceUtil(SCAutomaton.compile(sc));
+		this.specUnits = new HashSet<>(apiCallSet);
+		this.specUnits.removeAll(tailSet);
+	}
+
+	/**
+	 * Build the blocked ICFGs of this group, and find its
+	 * SC extension if `extendSC` is set, as Analysis does.
+	 */
+	public void buildICFG(AnalysisContext context, boolean retainCycle, boolean extendSC) {
+		JimpleBasedICFG baseICFG = context.getICFG();
+		Map<Pair<Unit, Unit>, Set<Unit>> intraCycles = Collections.emptyMap();
+		Map<Unit, Set<SootMethod>> interCycles = Collections.emptyMap();
+		TopDownBlockedJimpleICFG tdICFG = new TopDownBlockedJimpleICFG(
+				baseICFG, specUnits, bottomUpReachable);
+		fwICFG = tdICFG;
+		if (!retainCycle) {
+			intraCycles = context.getIntraCycles();
+			InterCycleFinder interFinder = new InterCycleFinder();
+			interCycles = interFinder.find(fwICFG, Scene.v().getMainMethod());
+			InterCycleFinder.printMap(interCycles);
+			tdICFG = new TopDownBlockedJimpleICFG(baseICFG, specUnits,
+					intraCycles, interCycles, bottomUpReachable);
+			fwICFG = tdICFG;
+		}
+		bwICFG = new BackwardsICFG(
+				new BottomUpBlockedJimpleICFG(baseICFG, specUnits, intraCycles, interCycles));
+		if (extendSC) {
+			// the cycles depend on the SC, so they are marked per group;
+			// the method tags are shared by, but not safe for, concurrent
+			// analyses
+			CycleMarks cycles = CycleTagger.INSTANCE.mark(fwICFG);
+			synchronized (context) {
+				context.tagMethods();
+				ExtensionFinder extFinder = new ExtensionFinder(fwICFG, util,
+						cycles, context.getAllocationSites());
+				util.setExtension(extFinder.find(sc));
+			}
+		}
+	}
+
+	public int getIndex() {
+		return index;
+	}
+
+	public Unit getTail() {
+		return tail;
+	}
+
+	public Set<StatementSequence> getSC() {
+		return sc;
+	}
+
+	public Set<Unit> getSpecUnits() {
+		return specUnits;
+	}
+
+	public StatementSequenceUtil getUtil() {
+		return util;
+	}
+
+	/** The top-down blocked ICFG of this group, without BU-reachability filtering */
+	public BlockedJimpleBasedICFG getForwardICFG() {
+		return fwICFG;
+	}
+
+	/** The bottom-up blocked ICFG of this group */
+	public BackwardsICFG getBackwardICFG() {
+		return bwICFG;
+	}
+
+	public ConcurrentBitSet getBottomUpReachable() {
+		return bottomUpReachable;
+	}
+}
@@ -22,8 +22,8 @@ import soot.tagkit.AttributeValueException;
 import soot.tagkit.Tag;
 
 /**
- * A host (typically Unit) has this tag if it is in an if-else
- * or switch-case branch.
+ * A host (typically Unit) has this tag if it is in a branch, i.e., it
+ * has a non-trivial control dependence (see BranchTagger).
  *
  */
 public enum BranchTag implements Tag {